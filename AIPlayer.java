@@ -1,21 +1,25 @@
 package citadels;
 
-import java.util.Random;
+import java.util.List;
 
 /**
  * An AI-controlled player in Citadels.
  * <p>
  * The AI will:
  * <ul>
- *   <li>If its hand has fewer than 2 cards: draw two and keep one at random.</li>
+ *   <li>If its hand has fewer than 2 cards and the deck is not empty:
+ *       draw two, keep one at random and discard the other.</li>
  *   <li>Otherwise: take 2 gold.</li>
- *   <li>Then build the most expensive affordable district.</li>
+ *   <li>Then build the most expensive affordable district not yet built,
+ *       as many times as its character allows.</li>
+ *   <li>In the draft, pick a random available character.</li>
+ *   <li>Use its character's ability, before income or, for the Warlord,
+ *       after building; see {@link #useAbility}.</li>
  * </ul>
+ * Each decision is a method that subclasses such as {@link MctsPlayer}
+ * may override.
  */
 public class AIPlayer extends Player {
-    /** Random generator used for income card choice. */
-    private final Random rand = new Random();
-
     /**
      * Construct an AIPlayer with the given ID.
      * @param id unique player identifier (1 = human, 2+ = AIs)
@@ -24,6 +28,11 @@ public class AIPlayer extends Player {
         super(id);
     }
 
+    @Override
+    public AIPlayer copy() {
+        return (AIPlayer) new AIPlayer(id).copyStateFrom(this);
+    }
+
     /**
      * Draw n cards into the AI’s hand.
      * @param deck the district deck to draw from
@@ -37,54 +46,178 @@ public class AIPlayer extends Player {
     }
 
     /**
-     * Take this AI’s turn: choose income then build the
-     * most expensive affordable district, if any.
+     * Pick a character during the draft.
+     * @param game current game state
+     * @param available characters still available (read-only)
+     * @return one of {@code available}; by default a random one
+     */
+    public Character pickCharacter(Game game, List<Character> available) {
+        return available.get(game.getRandom().nextInt(available.size()));
+    }
+
+    /**
+     * Take this AI’s turn: use its character's ability, choose income then
+     * build the most expensive affordable districts, if any.
      * @param game current game state
      */
     @Override
     public void takeTurn(Game game) {
-        // Income choice
-        if (hand.size() < 2) {
-            DistrictCard c1 = game.getDeck().draw();
-            DistrictCard c2 = game.getDeck().draw();
-            DistrictCard keep = rand.nextBoolean() ? c1 : c2;
-            hand.add(keep);
-            System.out.println("AI Player " + id +
-                               " draws income cards, keeps " + keep.display());
-        } else {
-            addGold(2);
-            System.out.println("AI Player " + id +
-                               " takes 2 gold (total=" + gold + ").");
+        Character me = game.getCharacter(this);
+        int action = me == null ? Abilities.NONE : Abilities.action(me);
+        if (action != Abilities.DESTROY) useAbility(game, action);
+        // Income choice (falls back to gold once the deck runs dry)
+        if (!game.getDeck().isEmpty() && wantsCards(game)) drawIncome(game);
+        else                                               takeGoldIncome(game);
+        for (int n = Abilities.buildLimit(me); n > 0; n--) {
+            DistrictCard card = chooseBuild(game);
+            if (card == null) break;
+            build(game, card);
         }
+        if (action == Abilities.DESTROY) useAbility(game, action);
+    }
 
-        // Build most expensive affordable district
-        DistrictCard toBuild = null;
-        int bestCost = -1;
-        for (DistrictCard d : hand) {
-            if (d.getCost() <= gold && d.getCost() > bestCost) {
-                bestCost = d.getCost();
-                toBuild = d;
+    /**
+     * Use the character's active ability, if any. By default the Assassin
+     * kills and the Thief robs a random character that may be in play; the
+     * Magician swaps with a player holding more cards, or else redraws cards
+     * already built; the Warlord destroys the leader's cheapest district if
+     * that costs at most 1 gold.
+     * @param game current game state
+     * @param action the character's {@link Abilities} code
+     */
+    protected void useAbility(Game game, int action) {
+        switch (action) {
+            case Abilities.KILL: {
+                int targets = CharacterMask.ALL & ~CharacterMask.bit(Character.ASSASSIN)
+                            & ~game.faceUpMask();
+                if (targets != 0) game.kill(this, randomOf(game, targets));
+                break;
             }
+            case Abilities.ROB: {
+                int targets = CharacterMask.ALL & ~Abilities.UNROBBABLE
+                            & ~game.killedMask() & ~game.faceUpMask();
+                if (targets != 0) game.rob(this, randomOf(game, targets));
+                break;
+            }
+            case Abilities.MAGIC: {
+                Player fullest = this;
+                for (Player p : game.getPlayers()) {
+                    if (p.getHandSize() > fullest.getHandSize()) fullest = p;
+                }
+                if (fullest != this) {
+                    game.swapHands(this, fullest);
+                    break;
+                }
+                int mask = 0;
+                for (int i = Math.min(hand.size(), Integer.SIZE) - 1; i >= 0; i--) {
+                    if (hasBuilt(hand.get(i))) mask |= 1 << i;
+                }
+                if (mask != 0) game.redraw(this, mask);
+                break;
+            }
+            case Abilities.DESTROY: {
+                Player leader = null;
+                for (Player p : game.getPlayers()) {
+                    if (p != this && p.getCitySize() > 0
+                        && (leader == null || game.liveScore(p) > game.liveScore(leader))) leader = p;
+                }
+                if (leader == null) break;
+                int i = ((CardList) leader.city).cheapest();
+                if (leader.city.get(i).getCost() <= 2) game.destroy(this, leader, i);
+                break;
+            }
+            default:
         }
-        if (toBuild != null) {
-            int idx = hand.indexOf(toBuild) + 1;
-            buildIndex(idx);
-            System.out.println("AI Player " + id +
-                               " builds " + toBuild.display());
-            game.checkEndTrigger(this);
-        }
+    }
+
+    /** @return a random member of a non-empty {@link CharacterMask} */
+    private static Character randomOf(Game game, int mask) {
+        return CharacterMask.single(
+            CharacterMask.pick(mask, game.getRandom().nextInt(Integer.bitCount(mask))));
+    }
+
+    /**
+     * @param game current game state
+     * @return true to draw income cards, false to take 2 gold
+     */
+    protected boolean wantsCards(Game game) {
+        return hand.size() < 2;
+    }
+
+    /**
+     * Choose which of two drawn income cards to keep.
+     * @param game current game state
+     * @param c1 first card drawn
+     * @param c2 second card drawn
+     * @return true to keep c1, false to keep c2
+     */
+    protected boolean keepFirst(Game game, DistrictCard c1, DistrictCard c2) {
+        return game.getRandom().nextBoolean();
+    }
+
+    /**
+     * @param game current game state
+     * @return the card to build from hand, or null to build nothing;
+     *         by default the most expensive affordable one not yet built
+     */
+    protected DistrictCard chooseBuild(Game game) {
+        int i = ((CardList) hand).bestAffordable(gold, (CardList) city);
+        return i < 0 ? null : hand.get(i);
+    }
+
+    /** Take 2 gold as income. */
+    void takeGoldIncome(Game game) {
+        addGold(2);
+        game.getEventListener().goldTaken(this, 2, gold);
+    }
+
+    /** Draw two income cards and keep one, as chosen by keepFirst(). */
+    void drawIncome(Game game) {
+        DistrictDeck deck = game.getDeck();
+        DistrictCard c1 = deck.draw();
+        DistrictCard c2 = deck.draw();
+        if (c2 == null) keepIncome(game, c1, null);
+        else if (keepFirst(game, c1, c2)) keepIncome(game, c1, c2);
+        else keepIncome(game, c2, c1);
+    }
+
+    /**
+     * Add a drawn income card to hand and discard the other.
+     * @param keep card kept
+     * @param other card discarded, or null if only one was drawn
+     */
+    void keepIncome(Game game, DistrictCard keep, DistrictCard other) {
+        if (other != null) game.getDeck().discard(other);
+        hand.add(keep);
+        game.getEventListener().cardKept(this, keep);
+    }
+
+    /**
+     * Build a card from hand and check for a completed city. An AI's hand
+     * order does not matter, so the last card fills the gap in O(log n).
+     * @param card card in hand not yet built, or null to build nothing
+     */
+    void build(Game game, DistrictCard card) {
+        if (card == null) return;
+        ((CardList) hand).removeUnordered(hand.indexOf(card));
+        addToCity(card);
+        gold -= card.getCost();
+        game.getEventListener().districtBuilt(this, card);
+        game.checkEndTrigger(this);
     }
 
     /**
      * Build a district from hand by its 1-based index.
      * Removes the card from hand, adds to city, deducts gold.
      * @param cardIndex 1-based index into hand
-     * @return true if build succeeded; false if index out of range
+     * @return true if build succeeded; false if index out of range or
+     *         the district is already built
      */
     public boolean buildIndex(int cardIndex) {
         if (cardIndex < 1 || cardIndex > hand.size()) return false;
+        if (hasBuilt(hand.get(cardIndex - 1))) return false;
         DistrictCard c = hand.remove(cardIndex - 1);
-        city.add(c);
+        addToCity(c);
         gold -= c.getCost();
         return true;
     }
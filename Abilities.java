@@ -0,0 +1,101 @@
+package citadels;
+
+/**
+ * What each character does, as tables indexed by {@link Character} ordinal.
+ * <p>
+ * Passive effects (income per district of a color, extra gold, extra cards,
+ * extra builds) are applied by {@link Game} when the character's rank is
+ * called. The one active ability a character may have (kill, rob, swap or
+ * redraw, destroy) is named by an action code; {@link Game} resolves it for
+ * humans and {@link AIPlayer#useAbility} for AIs. Lookups are array reads
+ * and switches over these codes, so resolving a turn neither boxes nor
+ * allocates.
+ */
+final class Abilities {
+    /** Active ability codes. */
+    static final int NONE = 0, KILL = 1, ROB = 2, MAGIC = 3, DESTROY = 4;
+
+    /** Active ability of each character. */
+    private static final byte[] ACTION = {
+        KILL, ROB, MAGIC, NONE, NONE, NONE, NONE, DESTROY
+    };
+
+    /** Color whose districts pay each character 1 gold, or null. */
+    private static final Color[] INCOME_COLOR = {
+        null, null, null, Color.YELLOW, Color.BLUE, Color.GREEN, null, Color.RED
+    };
+
+    /** Gold each character gains at the start of their turn. */
+    private static final byte[] BONUS_GOLD = { 0, 0, 0, 0, 0, 1, 0, 0 };
+
+    /** Cards each character draws at the start of their turn. */
+    private static final byte[] BONUS_CARDS = { 0, 0, 0, 0, 0, 0, 2, 0 };
+
+    /** Districts each character may build per turn. */
+    private static final byte[] BUILD_LIMIT = { 1, 1, 1, 1, 1, 1, 3, 1 };
+
+    /** Characters the Thief may not rob, as a {@link CharacterMask}. */
+    static final int UNROBBABLE = CharacterMask.bit(Character.ASSASSIN)
+                                | CharacterMask.bit(Character.THIEF);
+
+    /** Characters whose districts the Warlord may not destroy while they live. */
+    static final int PROTECTED = CharacterMask.bit(Character.BISHOP);
+
+    /** Text shown by the info and action commands. */
+    private static final String[] DESCRIPTION = {
+        "Assassin (1): Select another character to kill. That character loses their turn.",
+        "Thief (2): Select another character to rob. You take their gold when their turn begins. Cannot rob Assassin or the killed character.",
+        "Magician (3): Swap your hand with another player OR discard and redraw any number of cards.",
+        "King (4): Gain 1 gold per yellow district. Also gains the crown.",
+        "Bishop (5): Gain 1 gold per blue district. Warlord cannot destroy your buildings unless you're assassinated.",
+        "Merchant (6): Gain 1 gold per green district. Also gain 1 extra gold.",
+        "Architect (7): Draw 2 extra cards. Can build up to 3 districts.",
+        "Warlord (8): Gain 1 gold per red district. May destroy one district at a reduced cost (not in 8-district cities)."
+    };
+
+    /** How a human uses each character's active ability, or null. */
+    private static final String[] USAGE = {
+        "action kill <character>",
+        "action rob <character>",
+        "action swap <player#>  OR  action redraw <hand-index>...",
+        null, null, null, null,
+        "action destroy <player#> <district#>"
+    };
+
+    private Abilities() { }
+
+    /** @return the character's active ability code */
+    static int action(Character c) {
+        return ACTION[c.ordinal()];
+    }
+
+    /** @return the color of district that pays the character, or null */
+    static Color incomeColor(Character c) {
+        return INCOME_COLOR[c.ordinal()];
+    }
+
+    /** @return gold the character gains at the start of their turn */
+    static int bonusGold(Character c) {
+        return BONUS_GOLD[c.ordinal()];
+    }
+
+    /** @return cards the character draws at the start of their turn */
+    static int bonusCards(Character c) {
+        return BONUS_CARDS[c.ordinal()];
+    }
+
+    /** @return districts the character may build per turn; 1 for null */
+    static int buildLimit(Character c) {
+        return c == null ? 1 : BUILD_LIMIT[c.ordinal()];
+    }
+
+    /** @return the character's ability, for the info command */
+    static String describe(Character c) {
+        return DESCRIPTION[c.ordinal()];
+    }
+
+    /** @return the action command syntax, or null if the ability is passive */
+    static String usage(Character c) {
+        return USAGE[c.ordinal()];
+    }
+}
@@ -0,0 +1,63 @@
+package citadels;
+
+/**
+ * Receives every state-changing action a game applies, e.g. to append it to
+ * a write-ahead log (see {@link Autosave}).
+ * <p>
+ * Games are deterministic given their random generator, so a binary
+ * snapshot followed by the actions applied after it is enough to rebuild a
+ * game exactly; {@link Game#apply} re-executes a logged action. AI turns
+ * happen inside {@link #STEP} and need no entries of their own.
+ */
+public interface ActionLog {
+
+    /** One processT() step: a draft action or a rank called (arg unused). */
+    int STEP = 1;
+
+    /** The human picked a character (arg: Character ordinal). */
+    int CHOOSE = 2;
+
+    /** The human took gold income (arg unused). */
+    int INCOME_GOLD = 3;
+
+    /** The human drew income cards (arg: 1 or 2, the card kept). */
+    int INCOME_CARDS = 4;
+
+    /** The human tried to build (arg: hand index). */
+    int BUILD = 5;
+
+    /**
+     * The whole state was replaced, e.g. by load; earlier actions no longer
+     * lead to it, so a log should take a fresh snapshot (arg unused).
+     */
+    int RESTORED = 6;
+
+    /** The human, as Assassin, killed a character (arg: Character ordinal). */
+    int KILL = 7;
+
+    /** The human, as Thief, robbed a character (arg: Character ordinal). */
+    int ROB = 8;
+
+    /** The human, as Magician, swapped hands (arg: the other player's number). */
+    int SWAP = 9;
+
+    /** The human, as Magician, redrew cards (arg: bit i set to redraw hand index i, 0-based). */
+    int REDRAW = 10;
+
+    /** The human, as Warlord, destroyed a district (arg: player number &lt;&lt; 8 | 1-based district index). */
+    int DESTROY = 11;
+
+    /** The human's seat was handed to a default AI for the rest of the game (arg unused). */
+    int AUTOPLAY = 12;
+
+    /** A log that records nothing. */
+    ActionLog NONE = (game, action, arg) -> { };
+
+    /**
+     * Called on the game thread after an action has been applied.
+     * @param game the game that changed
+     * @param action one of the constants above
+     * @param arg action argument
+     */
+    void actionApplied(Game game, int action, int arg);
+}
@@ -1,16 +1,146 @@
 package citadels;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.SplittableRandom;
+
 /**
  * Application entry point for Citadels game.
  */
 public class App {
+    /** Bytes of console output buffered between prompts. */
+    private static final int CONSOLE_BUFFER = 1 << 16;
+
     /**
      * Main method: creates a Game and starts command processing.
-     * @param args command-line arguments (ignored)
+     * With {@code --autosave <dir>} the game is checkpointed to that
+     * directory as it is played, and a game left there by a crash is
+     * resumed instead of starting a new one. With {@code --journal <file>}
+     * every event is recorded to that file for the replay command. With
+     * {@code --server <port>} no local game is played; instead tables are
+     * hosted for TCP clients by a {@link GameServer}, listening on loopback
+     * unless {@code --bind <address>} names another interface. With
+     * {@code --batch <file>} (or {@code -} for standard input) the commands
+     * in the file are run without prompts against a game of
+     * {@code --players} seats (default 4) and {@code --seed}, and command
+     * latencies are reported on standard error; see {@link ScriptRunner}.
+     * @param args command-line arguments: optional --autosave &lt;dir&gt;,
+     *             --journal &lt;file&gt;, --server &lt;port&gt; [--bind &lt;address&gt;],
+     *             --batch &lt;file&gt; [--players &lt;n&gt;] [--seed &lt;n&gt;]
      */
     public static void main(String[] args) {
-        Game game = new Game();
-        CommandProcessor processor = new CommandProcessor(game);
+        File autosaveDir = null;
+        File journalFile = null;
+        String serverPort = null, bind = null;
+        String batch = null, players = "4", seed = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--autosave"))     autosaveDir = new File(args[i + 1]);
+            else if (args[i].equals("--journal")) journalFile = new File(args[i + 1]);
+            else if (args[i].equals("--server"))  serverPort = args[i + 1];
+            else if (args[i].equals("--bind"))    bind = args[i + 1];
+            else if (args[i].equals("--batch"))   batch = args[i + 1];
+            else if (args[i].equals("--players")) players = args[i + 1];
+            else if (args[i].equals("--seed"))    seed = args[i + 1];
+        }
+        if (serverPort != null) {
+            try {
+                GameServer.main(bind == null ? new String[] { serverPort }
+                                             : new String[] { serverPort, bind });
+            } catch (IOException e) {
+                System.out.println("Could not start server: " + e.getMessage());
+            }
+            return;
+        }
+
+        // Buffer the console: output goes out in one write per command,
+        // flushed at each prompt, rather than one write per line
+        System.setOut(new PrintStream(new BufferedOutputStream(
+            new FileOutputStream(FileDescriptor.out), CONSOLE_BUFFER), false));
+
+        if (batch != null) {
+            runBatch(batch, players, seed);
+            System.out.flush();
+            return;
+        }
+
+        Game game = null;
+        if (autosaveDir != null) {
+            try {
+                game = Autosave.recover(autosaveDir, new ConsoleRenderer(), true);
+                if (game != null) System.out.println("Resumed game from " + autosaveDir);
+            } catch (IOException e) {
+                System.out.println("Could not resume autosave: " + e.getMessage());
+            }
+        }
+        if (game == null) game = new Game(InputSource.STDIN, null, true);
+
+        if (autosaveDir != null) {
+            try {
+                Autosave autosave = Autosave.attach(game, autosaveDir,
+                                                    Autosave.DEFAULT_SNAPSHOT_EVERY);
+                PrintStream out = game.out();
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    autosave.close();
+                    if (autosave.failure() != null) {
+                        out.println("Autosave failed: " + autosave.failure().getMessage());
+                        out.flush();
+                    }
+                }));
+            } catch (IOException e) {
+                System.out.println("Autosave disabled: " + e.getMessage());
+            }
+        }
+
+        if (journalFile != null) {
+            try {
+                EventJournal journal = EventJournal.attach(game, journalFile,
+                                                           EventJournal.DEFAULT_SNAPSHOT_EVERY);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try { journal.close(); }
+                    catch (IOException e) { System.out.println("Journal failed: " + e.getMessage()); }
+                }));
+            } catch (IOException e) {
+                System.out.println("Journal disabled: " + e.getMessage());
+            }
+        }
+
+        CommandProcessor processor = new CommandProcessor(game, InputSource.STDIN, System.out);
         processor.run();
+        System.out.flush();
+    }
+
+    /**
+     * Run a command script headless and report latencies on System.err.
+     * @param file script file, or "-" for standard input
+     * @param players player count
+     * @param seed game seed, or null for a random one
+     */
+    private static void runBatch(String file, String players, String seed) {
+        ScriptRunner runner;
+        try {
+            runner = new ScriptRunner(Integer.parseInt(players),
+                seed != null ? Long.parseLong(seed) : new SplittableRandom().nextLong(),
+                System.out);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Usage: --batch <file|-> [--players 4-7] [--seed <n>]: "
+                               + e.getMessage());
+            return;
+        }
+        try (BufferedReader script = file.equals("-")
+                 ? new BufferedReader(new InputStreamReader(System.in), CONSOLE_BUFFER)
+                 : new BufferedReader(new FileReader(file), CONSOLE_BUFFER)) {
+            runner.run(InputSource.of(script));
+        } catch (IOException e) {
+            System.err.println("Could not read " + file + ": " + e.getMessage());
+        }
+        System.out.flush();
+        runner.report(System.err);
     }
 }
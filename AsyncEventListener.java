@@ -0,0 +1,210 @@
+package citadels;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers events and delivers them to another listener on a background
+ * thread, so the game thread never waits on formatting or I/O.
+ * <p>
+ * Events are delivered in order. When the buffer is full the game thread
+ * blocks until the writer catches up. If the target throws, the writer
+ * keeps the first exception, moves on to the next event and
+ * {@link #close()} rethrows it; if the writer thread is gone, events are
+ * dropped rather than blocking the game. Call {@link #close()} to drain
+ * the buffer and stop the thread.
+ */
+public class AsyncEventListener implements GameEventListener, AutoCloseable {
+    /** Marks the end of the stream for the writer thread. */
+    private static final Runnable STOP = () -> { };
+
+    /** How long a full buffer is waited on before checking the writer is alive. */
+    private static final long OFFER_WAIT_MS = 100;
+
+    private final GameEventListener target;
+    private final BlockingQueue<Runnable> buffer;
+    private final Thread writer;
+
+    /** First exception thrown by the target (writer thread only until joined). */
+    private RuntimeException failure;
+
+    /**
+     * Start a background writer.
+     * @param target listener to deliver events to (called on the writer thread)
+     * @param capacity events buffered before the game thread blocks
+     */
+    public AsyncEventListener(GameEventListener target, int capacity) {
+        this.target = target;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::drain, "citadels-events");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Writer loop: deliver events in batches until STOP arrives. */
+    private void drain() {
+        List<Runnable> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(buffer.take());
+                buffer.drainTo(batch);
+                for (Runnable r : batch) {
+                    if (r == STOP) return;
+                    try {
+                        r.run();
+                    } catch (RuntimeException e) {
+                        if (failure == null) failure = e;
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queue an event, waiting while the buffer is full.
+     * @return false if the writer thread has stopped and the event was dropped
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private boolean offer(Runnable event) throws InterruptedException {
+        while (!buffer.offer(event, OFFER_WAIT_MS, TimeUnit.MILLISECONDS)) {
+            if (!writer.isAlive()) return false;
+        }
+        return true;
+    }
+
+    private void enqueue(Runnable event) {
+        try {
+            offer(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Deliver everything buffered so far, then stop the writer thread.
+     * If interrupted while waiting, returns early with the interrupt
+     * status set.
+     * @throws RuntimeException the first exception the target threw, if any
+     */
+    @Override
+    public void close() {
+        try {
+            if (offer(STOP)) writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (failure != null) throw failure;
+    }
+
+    @Override
+    public void gameStarted(int playerCount, Player crowned) {
+        enqueue(() -> target.gameStarted(playerCount, crowned));
+    }
+
+    @Override
+    public void phaseStarted(Game.Phase phase) {
+        enqueue(() -> target.phaseStarted(phase));
+    }
+
+    @Override
+    public void mysteryCharacterRemoved() {
+        enqueue(target::mysteryCharacterRemoved);
+    }
+
+    @Override
+    public void characterDiscarded(Character c) {
+        enqueue(() -> target.characterDiscarded(c));
+    }
+
+    @Override
+    public void characterChoiceRequired(Player chooser, List<Character> available) {
+        enqueue(() -> target.characterChoiceRequired(chooser, available));
+    }
+
+    @Override
+    public void characterChosen(Player p) {
+        enqueue(() -> target.characterChosen(p));
+    }
+
+    @Override
+    public void turnStarted(int rank, Character c, Player owner) {
+        enqueue(() -> target.turnStarted(rank, c, owner));
+    }
+
+    @Override
+    public void goldTaken(Player p, int amount, int total) {
+        enqueue(() -> target.goldTaken(p, amount, total));
+    }
+
+    @Override
+    public void cardKept(Player p, DistrictCard kept) {
+        enqueue(() -> target.cardKept(p, kept));
+    }
+
+    @Override
+    public void districtBuilt(Player p, DistrictCard card) {
+        enqueue(() -> target.districtBuilt(p, card));
+    }
+
+    @Override
+    public void characterKilled(Character c) {
+        enqueue(() -> target.characterKilled(c));
+    }
+
+    @Override
+    public void characterRobbed(Character c) {
+        enqueue(() -> target.characterRobbed(c));
+    }
+
+    @Override
+    public void turnLost(int rank, Character c, Player owner) {
+        enqueue(() -> target.turnLost(rank, c, owner));
+    }
+
+    @Override
+    public void goldStolen(Player thief, Player victim, int amount) {
+        enqueue(() -> target.goldStolen(thief, victim, amount));
+    }
+
+    @Override
+    public void handsSwapped(Player magician, Player other) {
+        enqueue(() -> target.handsSwapped(magician, other));
+    }
+
+    @Override
+    public void cardsDrawn(Player p, int count) {
+        enqueue(() -> target.cardsDrawn(p, count));
+    }
+
+    @Override
+    public void characterIncome(Player p, Character c, int amount, int total) {
+        enqueue(() -> target.characterIncome(p, c, amount, total));
+    }
+
+    @Override
+    public void districtDestroyed(Player warlord, Player victim, DistrictCard card) {
+        enqueue(() -> target.districtDestroyed(warlord, victim, card));
+    }
+
+    @Override
+    public void crownPassed(Player p) {
+        enqueue(() -> target.crownPassed(p));
+    }
+
+    @Override
+    public void endTriggered(Player p) {
+        enqueue(() -> target.endTriggered(p));
+    }
+
+    @Override
+    public void gameOver(GameResult result) {
+        enqueue(() -> target.gameOver(result));
+    }
+}
@@ -0,0 +1,301 @@
+package citadels;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Keeps a crash-safe copy of a game in a directory: a binary snapshot
+ * ({@code snapshot.bin}) plus a write-ahead log of every action applied
+ * since ({@code turns.wal}).
+ * <p>
+ * The game thread only encodes: each action becomes one queued record, and
+ * every {@code snapshotEvery} actions the game is written to a byte array
+ * (a few microseconds). A background thread writes the log in batches with
+ * one fsync per batch (group commit), and writes snapshots to a temporary
+ * file that atomically replaces the previous one before the log is
+ * restarted. Both files carry a generation number, so a crash between the
+ * two steps never replays an old log onto a newer snapshot.
+ * <p>
+ * {@link #recover} rebuilds a game from the directory. Actions still
+ * queued when the process dies are lost; everything committed is replayed.
+ */
+public class Autosave implements ActionLog, AutoCloseable {
+    /** Snapshot file name; starts with its generation number. */
+    static final String SNAPSHOT_FILE = "snapshot.bin";
+
+    /** Log file name; starts with LOG_MAGIC and the generation it extends. */
+    static final String LOG_FILE = "turns.wal";
+
+    /** First four bytes of a log ("CTWL"). */
+    private static final int LOG_MAGIC = 0x4354574C;
+
+    /** Bytes per log record: action byte, int argument. */
+    private static final int RECORD_BYTES = 5;
+
+    /** Default number of actions between snapshots. */
+    public static final int DEFAULT_SNAPSHOT_EVERY = 64;
+
+    /** Marks the end of the queue for the writer thread. */
+    private static final Object STOP = new Object();
+
+    private final Path dir;
+    private final int snapshotEvery;
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(4096);
+    private final Thread writer;
+
+    /** Actions logged since the last snapshot (game thread only). */
+    private int sinceSnapshot;
+
+    /** Generation of the last snapshot queued (game thread only). */
+    private long generation;
+
+    /** Set by the writer thread if the disk fails; autosave then stops. */
+    private volatile IOException failure;
+
+    /** Open log file (writer thread only). */
+    private FileChannel log;
+
+    /** Records waiting for the next commit (writer thread only). */
+    private ByteBuffer pending = ByteBuffer.allocate(256 * RECORD_BYTES);
+
+    private Autosave(Path dir, int snapshotEvery, long generation) {
+        this.dir = dir;
+        this.snapshotEvery = snapshotEvery;
+        this.generation = generation;
+        this.writer = new Thread(this::drain, "citadels-autosave");
+        writer.setDaemon(true);
+    }
+
+    /**
+     * Start autosaving a game: write an initial snapshot and report every
+     * later action to the log.
+     * @param game game to protect
+     * @param dir directory for the snapshot and log (created if missing)
+     * @param snapshotEvery actions between full snapshots
+     * @return the running autosave; close it to flush and stop
+     * @throws IOException if the directory cannot be created or read
+     * @throws IllegalArgumentException if snapshotEvery &lt; 1
+     */
+    public static Autosave attach(Game game, File dir, int snapshotEvery) throws IOException {
+        if (snapshotEvery < 1) {
+            throw new IllegalArgumentException("snapshotEvery must be at least 1");
+        }
+        Path path = dir.toPath();
+        Files.createDirectories(path);
+        Autosave a = new Autosave(path, snapshotEvery, readGeneration(path.resolve(SNAPSHOT_FILE)));
+        a.writer.start();
+        a.snapshot(game);
+        game.setActionLog(a);
+        return a;
+    }
+
+    /**
+     * Rebuild the game saved in a directory: restore the snapshot, then
+     * silently re-apply the actions logged after it.
+     * @param dir autosave directory
+     * @param events listener for the recovered game's future events
+     * @param exitOnEnd exit the JVM once the recovered game is scored
+     * @return the recovered game, or null if the directory holds no snapshot
+     * @throws IOException if the snapshot cannot be read
+     */
+    public static Game recover(File dir, GameEventListener events, boolean exitOnEnd)
+            throws IOException {
+        File snap = new File(dir, SNAPSHOT_FILE);
+        if (!snap.exists()) return null;
+        Game game;
+        long gen;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(snap)))) {
+            gen  = in.readLong();
+            game = Game.readFrom(in, GameEventListener.NO_OP, exitOnEnd);
+        }
+        File wal = new File(dir, LOG_FILE);
+        if (wal.exists()) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(wal)))) {
+                if (in.readInt() == LOG_MAGIC && in.readLong() == gen) {
+                    while (true) {
+                        int action, arg;
+                        try {
+                            action = in.readUnsignedByte();
+                            arg    = in.readInt();
+                        } catch (EOFException e) {
+                            break; // end of log, or a record torn by the crash
+                        }
+                        game.apply(action, arg);
+                    }
+                }
+            } catch (EOFException e) {
+                // header torn by the crash: nothing was logged after the snapshot
+            }
+        }
+        game.setEventListener(events);
+        return game;
+    }
+
+    /** @return generation stored at the start of a snapshot file, or 0 if none */
+    private static long readGeneration(Path snap) throws IOException {
+        if (!Files.exists(snap)) return 0;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(snap))) {
+            return in.readLong();
+        } catch (EOFException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public void actionApplied(Game game, int action, int arg) {
+        if (failure != null) return;
+        if (action == RESTORED || ++sinceSnapshot >= snapshotEvery) {
+            snapshot(game);
+        } else {
+            enqueue(((long) action << 32) | (arg & 0xFFFFFFFFL));
+        }
+    }
+
+    /**
+     * Queue a full snapshot of the game; the log restarts after it.
+     * Must be called on the game thread.
+     * @param game the game to snapshot
+     */
+    public void snapshot(Game game) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeLong(++generation);
+            game.writeSnapshot(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen for a byte array
+        }
+        sinceSnapshot = 0;
+        enqueue(bytes.toByteArray());
+    }
+
+    private void enqueue(Object item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the error that stopped autosaving, or null while it works;
+     *         the caller reports it, e.g. through the game's output
+     */
+    public IOException failure() {
+        return failure;
+    }
+
+    /**
+     * Commit everything queued so far, then stop the writer thread.
+     * If interrupted while waiting, returns early with the interrupt
+     * status set; records not yet committed are lost as in a crash.
+     */
+    @Override
+    public void close() {
+        if (!writer.isAlive()) return;
+        try {
+            queue.put(STOP);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Writer loop: write each batch of records, then commit it with one fsync. */
+    private void drain() {
+        List<Object> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (Object item : batch) {
+                    if (item == STOP) {
+                        commit();
+                        return;
+                    }
+                    if (item instanceof byte[]) writeSnapshot((byte[]) item);
+                    else append((Long) item);
+                }
+                commit();
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            failure = e;
+            queue.clear();
+        } finally {
+            try {
+                if (log != null) log.close();
+            } catch (IOException ignored) {
+                // already failing or stopping
+            }
+        }
+    }
+
+    private void append(long record) {
+        if (pending.remaining() < RECORD_BYTES) {
+            ByteBuffer bigger = ByteBuffer.allocate(pending.capacity() * 2);
+            pending.flip();
+            pending = bigger.put(pending);
+        }
+        pending.put((byte) (record >>> 32)).putInt((int) record);
+    }
+
+    /** Write pending records and force them to disk. */
+    private void commit() throws IOException {
+        if (pending.position() == 0 || log == null) return;
+        pending.flip();
+        while (pending.hasRemaining()) log.write(pending);
+        pending.clear();
+        log.force(false);
+    }
+
+    /**
+     * Replace the snapshot file, then restart the log for its generation.
+     * Records queued before the snapshot belong to the old log and are
+     * committed there first.
+     */
+    private void writeSnapshot(byte[] snapshot) throws IOException {
+        commit();
+        Path tmp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.wrap(snapshot);
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        }
+        Files.move(tmp, dir.resolve(SNAPSHOT_FILE),
+                   StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        if (log == null) {
+            log = FileChannel.open(dir.resolve(LOG_FILE),
+                                   StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+        log.truncate(0); // also moves the position back to 0
+        ByteBuffer header = ByteBuffer.allocate(12);
+        header.putInt(LOG_MAGIC).putLong(ByteBuffer.wrap(snapshot).getLong());
+        header.flip();
+        while (header.hasRemaining()) log.write(header);
+        log.force(true);
+    }
+}
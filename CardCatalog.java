@@ -0,0 +1,174 @@
+package citadels;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Immutable table of the distinct district cards, each with a dense int id.
+ * <p>
+ * One {@link DistrictCard} instance exists per distinct card; decks, hands
+ * and cities all share those instances, and the Qty column only says how
+ * many copies of each id a fresh deck holds. The standard catalog is read
+ * from {@code cards.tsv} once per process.
+ */
+public final class CardCatalog {
+    /** Distinct cards, indexed by id. */
+    private final DistrictCard[] cards;
+
+    /** Copies of each id in a full deck. */
+    private final int[] copies;
+
+    /** Card ids of a full, unshuffled deck (each id repeated Qty times). */
+    private final int[] deckTemplate;
+
+    /** All colors by ordinal, for decoding snapshots. */
+    private static final Color[] COLORS = Color.values();
+
+    /** Lookup by lower-cased card name. */
+    private final Map<String, DistrictCard> byName;
+
+    /** Holder idiom: the standard catalog is loaded on first use, once. */
+    private static final class Standard {
+        static final CardCatalog INSTANCE = new CardCatalog(
+            CardCatalog.class.getResourceAsStream("/citadels/cards.tsv"));
+    }
+
+    /** @return the process-wide catalog read from cards.tsv */
+    public static CardCatalog standard() {
+        return Standard.INSTANCE;
+    }
+
+    /**
+     * Read cards from a TSV stream, line format:
+     *   Name [tab] Qty [tab] color [tab] cost [tab] text
+     *
+     * @param tsvStream InputStream of the TSV data
+     * @throws RuntimeException on I/O error
+     */
+    public CardCatalog(InputStream tsvStream) {
+        List<DistrictCard> list = new ArrayList<>();
+        List<Integer> qty = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(tsvStream, StandardCharsets.UTF_8))) {
+            String line = br.readLine(); // skip header
+            while ((line = br.readLine()) != null) {
+                String[] parts = line.split("\t");
+                String name  = parts[0];
+                int    count = Integer.parseInt(parts[1]);
+                Color  color = Color.fromString(parts[2]);
+                int    cost  = Integer.parseInt(parts[3].trim());
+                String text  = parts.length > 4 ? parts[4].trim() : "";
+                list.add(new DistrictCard(list.size(), name, color, cost, text));
+                qty.add(count);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        cards  = list.toArray(new DistrictCard[0]);
+        copies = new int[cards.length];
+        int total = 0;
+        for (int i = 0; i < cards.length; i++) {
+            copies[i] = qty.get(i);
+            total += copies[i];
+        }
+        deckTemplate = new int[total];
+        int n = 0;
+        for (int id = 0; id < cards.length; id++) {
+            for (int c = 0; c < copies[id]; c++) deckTemplate[n++] = id;
+        }
+        Map<String, DistrictCard> names = new HashMap<>();
+        for (DistrictCard d : cards) names.put(d.getName().toLowerCase(Locale.ROOT), d);
+        byName = Collections.unmodifiableMap(names);
+    }
+
+    /** @return number of distinct cards (ids are 0…size()-1) */
+    public int size() {
+        return cards.length;
+    }
+
+    /**
+     * @param id card id
+     * @return the shared card instance
+     */
+    public DistrictCard get(int id) {
+        return cards[id];
+    }
+
+    /**
+     * @param name card name, any case, e.g. "Wishing Well"
+     * @return the shared card instance, or null if unknown
+     */
+    public DistrictCard byName(String name) {
+        return byName.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @param id card id
+     * @return copies of that card in a full deck
+     */
+    public int copies(int id) {
+        return copies[id];
+    }
+
+    /** @return total number of cards in a full deck */
+    public int deckSize() {
+        return deckTemplate.length;
+    }
+
+    /**
+     * Card ids of a full deck in catalog order. The caller may shuffle the
+     * returned copy freely.
+     * @return a new array of deckSize() ids
+     */
+    public int[] newDeck() {
+        return deckTemplate.clone();
+    }
+
+    /**
+     * Write a card for a binary snapshot: its id, or for a card that is not
+     * from this catalog, -1 followed by the card's fields.
+     * @param out destination
+     * @param card card to write
+     * @throws IOException if the destination fails
+     */
+    void writeCard(DataOutput out, DistrictCard card) throws IOException {
+        int id = card.getId();
+        if (id >= 0 && id < cards.length && cards[id] == card) {
+            out.writeShort(id);
+            return;
+        }
+        out.writeShort(-1);
+        out.writeUTF(card.getName());
+        out.writeByte(card.getColor().ordinal());
+        out.writeShort(card.getCost());
+        out.writeUTF(card.getText());
+    }
+
+    /**
+     * Read a card written by {@link #writeCard}.
+     * @param in source
+     * @return the shared card instance, or a new card for one not in this catalog
+     * @throws IOException if the source fails or holds an unknown id
+     */
+    DistrictCard readCard(DataInput in) throws IOException {
+        int id = in.readShort();
+        if (id == -1) {
+            String name = in.readUTF();
+            int color = in.readUnsignedByte();
+            if (color >= COLORS.length) throw new IOException("Unknown color " + color);
+            int cost = in.readShort();
+            return new DistrictCard(name, COLORS[color], cost, in.readUTF());
+        }
+        checkId(id);
+        return cards[id];
+    }
+
+    /**
+     * @param id card id read from a snapshot
+     * @throws IOException if the id is not in this catalog
+     */
+    void checkId(int id) throws IOException {
+        if (id < 0 || id >= cards.length) throw new IOException("Unknown card id " + id);
+    }
+}
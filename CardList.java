@@ -0,0 +1,418 @@
+package citadels;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A player's hand or city: a list of cards that keeps a running hash of
+ * its contents as a multiset, and an index of the cards by color and cost.
+ * <p>
+ * Every change to an AbstractList, including changes through iterators
+ * and sub-lists, goes through {@link #add(int, DistrictCard)},
+ * {@link #set} or {@link #remove(int)}, so the hash and index stay exact
+ * however the list is edited. Each of those updates the hash in O(1) by
+ * adding or subtracting the card's Zobrist key.
+ * <p>
+ * The index is a sorted array with one entry per card: its color and
+ * cost in the high half, its list position in the low half. Build
+ * decisions ({@link #bestAffordable}, {@link #cheapest}) and
+ * {@link #indexOf} are binary searches over it, so they cost O(log n)
+ * however large the hand grows. Insertions and removals in the middle
+ * of the list renumber the entries after them, like the array shift they
+ * come with; {@link #removeUnordered} removes in O(log n) instead.
+ * <p>
+ * A bitset over catalog ids records which distinct districts are held,
+ * so {@link #containsDistrict} (the duplicate-building rule) is O(1).
+ */
+final class CardList extends AbstractList<DistrictCard> implements RandomAccess, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Zobrist feature kind (HAND or CITY) and seat of the owner. */
+    private final int kind, seat;
+
+    /** Bits of an index key holding the cost; the color is above them. */
+    private static final int COST_BITS = 5;
+
+    /** Number of colors, also the color part of a null card's key. */
+    private static final int COLORS = Color.values().length;
+
+    private DistrictCard[] cards = new DistrictCard[8];
+    private int size;
+
+    /** Index entries (color, cost, position), sorted; see class comment. */
+    private long[] order = new long[8];
+
+    /** Bit per catalog id held; grown on demand. */
+    private long[] present = new long[1];
+
+    /** Number of cards held that are not from a catalog (id -1). */
+    private int foreign;
+
+    /** Sum of the keys of all cards held. */
+    private long hash;
+
+    /**
+     * @param kind Zobrist.HAND or Zobrist.CITY
+     * @param seat owner's player id
+     */
+    CardList(int kind, int seat) {
+        this.kind = kind;
+        this.seat = seat;
+    }
+
+    /**
+     * Copy another list's cards, keeping this list's kind and seat.
+     * @param kind Zobrist.HAND or Zobrist.CITY
+     * @param seat owner's player id
+     * @param src cards to copy
+     */
+    CardList(int kind, int seat, Collection<DistrictCard> src) {
+        this(kind, seat);
+        if (src instanceof CardList && ((CardList) src).kind == kind && ((CardList) src).seat == seat) {
+            CardList c = (CardList) src;
+            cards = Arrays.copyOf(c.cards, Math.max(8, c.size));
+            order = Arrays.copyOf(c.order, cards.length);
+            present = c.present.clone();
+            foreign = c.foreign;
+            size  = c.size;
+            hash  = c.hash;
+        } else {
+            addAll(src);
+        }
+    }
+
+    /** @return sum of the Zobrist keys of the cards held */
+    long hash() {
+        return hash;
+    }
+
+    private long key(DistrictCard d) {
+        return d == null ? 0 : Zobrist.key(kind, seat, d.getId());
+    }
+
+    // ─── Districts held ──────────────────────────────────────────────────────
+
+    /** Record a card that has just been added. */
+    private void mark(DistrictCard d) {
+        if (d == null) return;
+        int id = d.getId();
+        if (id < 0) {
+            foreign++;
+            return;
+        }
+        if (id >> 6 >= present.length) present = Arrays.copyOf(present, (id >> 6) + 1);
+        present[id >> 6] |= 1L << id;
+    }
+
+    /** Forget a card that has just been removed, unless another copy is left. */
+    private void unmark(DistrictCard d) {
+        if (d == null) return;
+        int id = d.getId();
+        if (id < 0) {
+            foreign--;
+            return;
+        }
+        int k = sortKey(d);
+        for (int p = lowerBound((long) k << 32); p < size && (int) (order[p] >>> 32) == k; p++) {
+            if (cards[(int) order[p]].getId() == id) return;
+        }
+        present[id >> 6] &= ~(1L << id);
+    }
+
+    /**
+     * O(1) unless cards from outside a catalog are involved, which are
+     * matched by name with a scan.
+     * @param d a district
+     * @return true if a district with the same name is held
+     */
+    boolean containsDistrict(DistrictCard d) {
+        int id = d.getId();
+        if (id >= 0) {
+            if (id >> 6 < present.length && (present[id >> 6] & 1L << id) != 0) return true;
+            if (foreign == 0) return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (cards[i] != null && cards[i].getName().equals(d.getName())) return true;
+        }
+        return false;
+    }
+
+    // ─── Index ───────────────────────────────────────────────────────────────
+
+    /** @return the card's index key: color, then cost; nulls sort last */
+    private static int sortKey(DistrictCard d) {
+        return d == null ? COLORS << COST_BITS : d.getColor().ordinal() << COST_BITS | d.getCost();
+    }
+
+    private static long entry(DistrictCard d, int index) {
+        return (long) sortKey(d) << 32 | index;
+    }
+
+    /** @return first position in order[] whose entry is &gt;= e */
+    private int lowerBound(long e) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (order[mid] < e) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Insert an entry; order[] has room for size + 1 entries. */
+    private void insertEntry(long e) {
+        int p = lowerBound(e);
+        System.arraycopy(order, p, order, p + 1, size - p);
+        order[p] = e;
+    }
+
+    /** Remove an entry known to be present, with size not yet reduced. */
+    private void removeEntry(long e) {
+        int p = lowerBound(e);
+        System.arraycopy(order, p + 1, order, p, size - p - 1);
+    }
+
+    /** Shift the positions of entries at or after {@code from} by delta. */
+    private void renumber(int from, int delta) {
+        for (int p = 0; p < size; p++) {
+            if ((int) order[p] >= from) order[p] += delta;
+        }
+    }
+
+    /**
+     * @param skip cards whose district it holds are passed over, or null
+     * @return position of the most expensive card of this color costing at
+     *         most {@code gold} (the earliest on ties), or -1 if none
+     */
+    private int bestAffordable(int color, int gold, CardList skip) {
+        if (gold < 0) return -1;
+        int cap = color << COST_BITS | Math.min(gold, DistrictCard.MAX_COST);
+        int p = lowerBound((long) (cap + 1) << 32) - 1;
+        while (p >= 0) {
+            int k = (int) (order[p] >>> 32);
+            if (k >> COST_BITS != color) return -1;
+            int start = lowerBound((long) k << 32);
+            for (int q = start; q <= p; q++) {
+                int i = (int) order[q];
+                if (skip == null || !skip.containsDistrict(cards[i])) return i;
+            }
+            p = start - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * @param gold gold available
+     * @return position of the most expensive card costing at most gold,
+     *         the earliest in the list on ties; -1 if none is affordable
+     */
+    int bestAffordable(int gold) {
+        return bestAffordable(gold, null);
+    }
+
+    /**
+     * As {@link #bestAffordable(int)}, passing over districts already held
+     * in another list (a city, for the duplicate-building rule).
+     * @param gold gold available
+     * @param skip cards whose district it holds are passed over, or null
+     * @return position of the card, or -1 if none
+     */
+    int bestAffordable(int gold, CardList skip) {
+        int best = -1;
+        for (int c = 0; c < COLORS; c++) {
+            int i = bestAffordable(c, gold, skip);
+            if (i >= 0 && (best < 0 || cards[i].getCost() > cards[best].getCost()
+                           || (cards[i].getCost() == cards[best].getCost() && i < best))) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param color color wanted
+     * @param gold gold available
+     * @return position of the most expensive card of that color costing at
+     *         most gold, the earliest on ties; -1 if none
+     */
+    int bestAffordable(Color color, int gold) {
+        return bestAffordable(color.ordinal(), gold, null);
+    }
+
+    /** @return position of the cheapest card, the earliest on ties; -1 if empty */
+    int cheapest() {
+        int best = -1;
+        for (int c = 0; c < COLORS; c++) {
+            int i = cheapest(c);
+            if (i >= 0 && (best < 0 || cards[i].getCost() < cards[best].getCost()
+                           || (cards[i].getCost() == cards[best].getCost() && i < best))) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param color color wanted
+     * @return position of the cheapest card of that color, the earliest on
+     *         ties; -1 if none
+     */
+    int cheapest(Color color) {
+        return cheapest(color.ordinal());
+    }
+
+    private int cheapest(int color) {
+        int p = lowerBound((long) (color << COST_BITS) << 32);
+        if (p == size || (int) (order[p] >>> 32) >> COST_BITS != color) return -1;
+        return (int) order[p];
+    }
+
+    /**
+     * O(log n): two searches of the index.
+     * @param color color wanted
+     * @return number of cards of that color
+     */
+    int count(Color color) {
+        int c = color.ordinal();
+        return lowerBound((long) ((c + 1) << COST_BITS) << 32) - lowerBound((long) (c << COST_BITS) << 32);
+    }
+
+    /**
+     * Exchange contents with another list of the same kind, keeping each
+     * list's seat (the Magician's swap). Costs O(n) to rehash; allocates
+     * nothing.
+     * @param other list to swap with
+     */
+    void swapContents(CardList other) {
+        DistrictCard[] c = cards;
+        cards = other.cards;
+        other.cards = c;
+        long[] o = order;
+        order = other.order;
+        other.order = o;
+        long[] p = present;
+        present = other.present;
+        other.present = p;
+        int n = size;
+        size = other.size;
+        other.size = n;
+        n = foreign;
+        foreign = other.foreign;
+        other.foreign = n;
+        rehash();
+        other.rehash();
+        modCount++;
+        other.modCount++;
+    }
+
+    /** Recompute the hash from the cards held, for this list's seat. */
+    private void rehash() {
+        hash = 0;
+        for (int i = 0; i < size; i++) hash += key(cards[i]);
+    }
+
+    /** Position of the first occurrence, found through the index. */
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof DistrictCard)) return super.indexOf(o);
+        int k = sortKey((DistrictCard) o);
+        for (int p = lowerBound((long) k << 32); p < size && (int) (order[p] >>> 32) == k; p++) {
+            int i = (int) order[p];
+            if (o.equals(cards[i])) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Remove a card by moving the last card into its place, in O(log n),
+     * for lists whose order does not matter (AI hands).
+     * @param index position of the card to remove
+     * @return the card removed
+     */
+    DistrictCard removeUnordered(int index) {
+        DistrictCard old = get(index);
+        int last = size - 1;
+        removeEntry(entry(old, index));
+        size--;
+        if (index != last) {
+            DistrictCard moved = cards[last];
+            removeEntry(entry(moved, last));
+            size--;
+            cards[index] = moved;
+            insertEntry(entry(moved, index));
+            size++;
+        }
+        cards[last] = null;
+        unmark(old);
+        modCount++;
+        hash -= key(old);
+        return old;
+    }
+
+    // ─── List ────────────────────────────────────────────────────────────────
+
+    @Override
+    public DistrictCard get(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return cards[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public DistrictCard set(int index, DistrictCard d) {
+        DistrictCard old = get(index);
+        cards[index] = d;
+        removeEntry(entry(old, index));
+        size--;
+        insertEntry(entry(d, index));
+        size++;
+        mark(d);
+        unmark(old);
+        hash += key(d) - key(old);
+        return old;
+    }
+
+    @Override
+    public void add(int index, DistrictCard d) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (size == cards.length) {
+            cards = Arrays.copyOf(cards, size * 2);
+            order = Arrays.copyOf(order, size * 2);
+        }
+        System.arraycopy(cards, index, cards, index + 1, size - index);
+        cards[index] = d;
+        if (index < size) renumber(index, 1);
+        insertEntry(entry(d, index));
+        size++;
+        mark(d);
+        modCount++;
+        hash += key(d);
+    }
+
+    @Override
+    public DistrictCard remove(int index) {
+        DistrictCard old = get(index);
+        removeEntry(entry(old, index));
+        System.arraycopy(cards, index + 1, cards, index, size - index - 1);
+        cards[--size] = null;
+        renumber(index + 1, -1);
+        unmark(old);
+        modCount++;
+        hash -= key(old);
+        return old;
+    }
+}
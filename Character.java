@@ -8,6 +8,9 @@ public enum Character {
     KING(4), BISHOP(5), MERCHANT(6),
     ARCHITECT(7), WARLORD(8);
 
+    /** All characters in rank order, shared rather than cloned by values(). */
+    private static final Character[] ALL = values();
+
     /** The rank order of this character. */
     public final int rank;
 
@@ -15,6 +18,31 @@ public enum Character {
         rank = r;
     }
 
+    /**
+     * Look up a character by name, ignoring case.
+     * @param name e.g. "assassin"
+     * @return the character, or null if no character has that name
+     */
+    public static Character byName(String name) {
+        return byName(name, 0, name.length());
+    }
+
+    /**
+     * Look up a character named by part of a string, ignoring case.
+     * @param s the string
+     * @param from start of the name
+     * @param to end of the name, exclusive
+     * @return the character, or null if no character has that name
+     */
+    static Character byName(String s, int from, int to) {
+        int len = to - from;
+        for (Character c : ALL) {
+            String name = c.name();
+            if (name.length() == len && s.regionMatches(true, from, name, 0, len)) return c;
+        }
+        return null;
+    }
+
     /**
      * Return lowercase name with rank in parentheses.
      * @return e.g. "assassin(1)"
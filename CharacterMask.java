@@ -0,0 +1,68 @@
+package citadels;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sets of characters packed into an int, one bit per {@link Character}
+ * ordinal, for the selection phase.
+ * <p>
+ * Picking the n-th member and listing a set are table lookups: every one
+ * of the 256 possible sets has its members and an unmodifiable list view
+ * precomputed, so a draft neither loops nor allocates.
+ */
+final class CharacterMask {
+    private static final Character[] CHARACTERS = Character.values();
+
+    /** Every character. */
+    static final int ALL = (1 << CHARACTERS.length) - 1;
+
+    /** The King, who may not be discarded face up. */
+    static final int KING = bit(Character.KING);
+
+    /** Ordinal of the n-th member of each set, at index (set &lt;&lt; 3 | n). */
+    private static final byte[] SELECT = new byte[(ALL + 1) << 3];
+
+    /** Members of each set in rank order. */
+    private static final List<?>[] LISTS = new List<?>[ALL + 1];
+
+    static {
+        for (int mask = 0; mask <= ALL; mask++) {
+            List<Character> members = new ArrayList<>(Integer.bitCount(mask));
+            for (int o = 0; o < CHARACTERS.length; o++) {
+                if ((mask & 1 << o) == 0) continue;
+                SELECT[mask << 3 | members.size()] = (byte) o;
+                members.add(CHARACTERS[o]);
+            }
+            LISTS[mask] = Collections.unmodifiableList(members);
+        }
+    }
+
+    private CharacterMask() { }
+
+    /** @return the set holding only c */
+    static int bit(Character c) {
+        return 1 << c.ordinal();
+    }
+
+    /** @return the only member of a one-character set, or null if empty */
+    static Character single(int mask) {
+        return mask == 0 ? null : CHARACTERS[Integer.numberOfTrailingZeros(mask)];
+    }
+
+    /**
+     * @param mask a non-empty set
+     * @param n index in rank order, 0 ≤ n &lt; size of the set
+     * @return the set holding only its n-th member
+     */
+    static int pick(int mask, int n) {
+        return 1 << SELECT[mask << 3 | n];
+    }
+
+    /** @return the set's members in rank order, as a shared unmodifiable list */
+    @SuppressWarnings("unchecked")
+    static List<Character> list(int mask) {
+        return (List<Character>) LISTS[mask];
+    }
+}
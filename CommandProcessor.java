@@ -1,167 +1,312 @@
 package citadels;
 
-import java.util.Scanner;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 
 /**
- * Reads commands from standard input and invokes Game methods.
+ * Reads commands from a console (standard input, or a network connection)
+ * and invokes Game methods.
+ * <p>
+ * {@link #run} pulls lines from an {@link InputSource} until the game ends.
+ * A caller that owns the input itself, e.g. one thread serving many games,
+ * instead calls {@link #prompt} and then {@link #execute} as each line
+ * arrives; neither ever blocks.
+ * <p>
+ * Commands live in a table keyed by name: {@link #register} adds one
+ * without touching the dispatcher. Lines are split by {@link Tokens}, so
+ * parsing needs no regex and bad input is reported without exceptions.
  */
 public class CommandProcessor {
+    /** A console command, registered by name with {@link #register}. */
+    @FunctionalInterface
+    public interface Command {
+        /**
+         * Run the command.
+         * @param args the command line's words; word 0 is the command name
+         */
+        void run(Tokens args);
+    }
+
     private final Game game;
-    private final Scanner sc = new Scanner(System.in);
+    private final InputSource in;
+    private final PrintStream out;
+
+    /** Commands by lowercase name. */
+    private final Map<String, Command> commands = new HashMap<>();
+
+    /** Words of the line being executed, reused for every line. */
+    private final Tokens tokens = new Tokens();
 
     /**
-     * Create a new processor for the given game.
+     * Create a new processor for the given game on standard input and output.
      * @param game the game instance to drive
      */
     public CommandProcessor(Game game) {
+        this(game, InputSource.STDIN, System.out);
+    }
+
+    /**
+     * Create a processor reading commands from {@code in} and writing
+     * prompts and messages to {@code out}. The game's own prompts become
+     * {@link Game.Prompt} states answered by the next line read, so the
+     * game should write to the same {@code out}
+     * (see {@link Game#Game(PrintStream)}).
+     * @param game the game instance to drive
+     * @param in command input
+     * @param out output; flushed before each command is read
+     */
+    public CommandProcessor(Game game, InputSource in, PrintStream out) {
         this.game = game;
+        this.in   = in;
+        this.out  = out;
+        game.setInput(null);
+        registerCommands();
     }
 
     /**
-     * Main REPL loop: read lines, parse commands, call game methods.
-     * Recognized commands include: t, hand, gold, income, build, end,
-     * citadel/list/city, all, save, load, debug, help, info.
+     * Main REPL loop: read lines, parse commands, call game methods, until
+     * the input ends or the game is finished.
+     * @throws UncheckedIOException if reading the input fails
      */
     public void run() {
-        while (true) {
-            System.out.print("> ");
-            String line = sc.nextLine().trim();
-            if (line.isEmpty()) {
-                game.showHelp();
-                continue;
+        while (!game.isFinished()) {
+            prompt();
+            String line;
+            try {
+                line = in.nextLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+            if (line == null) return;
+            execute(line);
+        }
+    }
 
-            if (game.getPhase() == Game.Phase.SELECTION) {
-                if (line.equalsIgnoreCase("t")) {
-                    game.pressT();
-                } else {
-                    game.chooseCharacter(line);
-                }
-                continue;
-            }
+    /**
+     * Show that input is awaited, "> " for a command unless the game has
+     * already asked its own question, and flush the output.
+     */
+    public void prompt() {
+        if (game.getPrompt() == Game.Prompt.NONE) out.print("> ");
+        out.flush();
+    }
 
-            Player current = game.getCurrentPlayer();
-            boolean humanTurn = current instanceof HumanPlayer;
-            String[] parts = line.split("\\s+");
-            String cmd = parts[0].toLowerCase();
+    /**
+     * Handle one input line: the answer to the game's pending prompt, or
+     * a command looked up in the command table by its first word. While
+     * characters are being picked, any line other than t or ff/run names
+     * the character to pick.
+     * @param line the line, without its terminator
+     */
+    public void execute(String line) {
+        if (game.getPrompt() != Game.Prompt.NONE) {
+            game.answer(line);
+            return;
+        }
+        Tokens args = tokens.reset(line);
+        if (args.count() == 0) {
+            game.showHelp();
+            return;
+        }
+        if (game.getPhase() == Game.Phase.SELECTION
+            && !args.is(0, "t") && !args.is(0, "ff") && !args.is(0, "run")) {
+            game.chooseCharacter(args.rest(0));
+            return;
+        }
+        Command c = commands.get(args.word(0).toLowerCase(Locale.ROOT));
+        if (c != null) {
+            c.run(args);
+        } else {
+            out.println("Unknown command.");
+            game.showHelp();
+        }
+    }
 
-            if (humanTurn && cmd.equals("income") && parts.length == 2) {
-                if (parts[1].equalsIgnoreCase("gold"))      game.humanTakeGoldIncome();
-                else if (parts[1].equalsIgnoreCase("cards")) game.humanDrawIncome();
-                else System.out.println("Usage: income gold | income cards");
-                continue;
+    // ─── Command table ───────────────────────────────────────────────────────
+
+    /**
+     * Add a command, or replace the one registered under the same name.
+     * @param command what the command does
+     * @param names the command's name and any aliases, matched ignoring case
+     */
+    public void register(Command command, String... names) {
+        for (String name : names) commands.put(name.toLowerCase(Locale.ROOT), command);
+    }
+
+    /**
+     * Remove commands, e.g. ones a remote client must not run.
+     * @param names names and aliases to remove, matched ignoring case
+     */
+    public void unregister(String... names) {
+        for (String name : names) commands.remove(name.toLowerCase(Locale.ROOT));
+    }
+
+    /** Register the built-in commands. */
+    private void registerCommands() {
+        register(a -> game.pressT(), "t");
+        register(a -> {
+            if (a.count() > 2 || (a.count() == 2 && !a.is(1, "end"))) {
+                out.println("Usage: ff [end]");
+                return;
             }
+            int steps = game.fastForward(a.count() == 2);
+            out.printf("Fast-forwarded %d step%s.%n", steps, steps == 1 ? "" : "s");
+            if (steps == Game.MAX_STEPS) out.println("Stopped at the step limit.");
+        }, "ff", "run");
+        register(yourTurn(a -> {
+            if (a.count() == 2 && a.is(1, "gold"))       game.humanTakeGoldIncome();
+            else if (a.count() == 2 && a.is(1, "cards")) game.humanDrawIncome();
+            else out.println("Usage: income gold | income cards");
+        }), "income");
+        register(yourTurn(a -> game.showHand()), "hand");
+        register(yourTurn(a -> out.println("You have " + game.getHuman().getGold() + " gold.")),
+                 "gold");
+        register(a -> {
+            int idx = a.count() == 2 ? a.number(1) : Tokens.NOT_A_NUMBER;
+            if (humanTurn() && idx != Tokens.NOT_A_NUMBER) game.humanBuild(idx);
+            else out.println("Usage: build <hand-index>");
+        }, "build");
+        register(yourTurn(this::action), "action");
+        register(yourTurn(a -> game.pressT()), "end");
+        register(a -> {
+            int pid = a.count() == 2 ? a.number(1) : 1;
+            if (pid == Tokens.NOT_A_NUMBER) out.println("Usage: " + a.word(0) + " [player#]");
+            else                            game.showCity(pid);
+        }, "citadel", "list", "city");
+        register(a -> game.showAll(), "all");
+        register(a -> game.showScores(), "score");
+        register(a -> {
+            if (a.count() == 2) game.save(a.word(1));
+            else out.println("Usage: save <file>");
+        }, "save");
+        register(a -> {
+            if (a.count() == 2) game.load(a.word(1));
+            else out.println("Usage: load <file>");
+        }, "load");
+        register(a -> {
+            int event = a.count() == 3 ? a.number(2) : Integer.MAX_VALUE;
+            if (a.count() < 2 || a.count() > 3 || event == Tokens.NOT_A_NUMBER) {
+                out.println("Usage: replay <journal-file> [event#]");
+            } else {
+                replay(a.word(1), event);
+            }
+        }, "replay");
+        register(a -> game.toggleDebug(), "debug");
+        register(a -> game.showHelp(), "help");
+        register(this::info, "info");
+    }
+
+    /** @return true if it is the human's turn */
+    private boolean humanTurn() {
+        return game.getCurrentPlayer() instanceof HumanPlayer;
+    }
+
+    /** Wrap a command that only the player whose turn it is may use. */
+    private Command yourTurn(Command c) {
+        return a -> {
+            if (humanTurn()) c.run(a);
+            else             out.println("It is not your turn.");
+        };
+    }
+
+    // ─── Commands ────────────────────────────────────────────────────────────
+
+    /**
+     * Describe a character, a card in the human's hand by index, or any
+     * card by name.
+     * @param a the command line's words
+     */
+    private void info(Tokens a) {
+        if (a.count() < 2) {
+            out.println("Usage: info <character-name> OR info <hand-index> OR info <card-name>");
+            return;
+        }
+        if (a.count() > 2) {
+            String cardName = a.rest(1);
+            if (!game.showCardInfo(cardName)) out.println("Unknown card: " + cardName);
+            return;
+        }
+        int idx = a.number(1);
+        if (idx != Tokens.NOT_A_NUMBER) {
+            if (humanTurn()) game.showCardInfo(idx);
+            else             out.println("It is not your turn.");
+            return;
+        }
+        Character c = a.character(1);
+        if (c != null) {
+            out.println(Abilities.describe(c));
+        } else if (!game.showCardInfo(a.word(1))) {
+            out.println("Invalid character name. Try one of: " + game.listAllCharacters());
+        }
+    }
 
-            switch (cmd) {
-                case "t": game.pressT(); break;
-                case "hand":
-                    if (humanTurn) game.showHand();
-                    else           System.out.println("It is not your turn.");
-                    break;
-                case "gold":
-                    if (humanTurn)
-                        System.out.println("You have " + game.getHuman().getGold() + " gold.");
-                    else
-                        System.out.println("It is not your turn.");
-                    break;
-                case "build":
-                    if (humanTurn && parts.length == 2) {
-                        try {
-                            int idx = Integer.parseInt(parts[1]);
-                            game.humanBuild(idx);
-                        } catch (NumberFormatException e) {
-                            System.out.println("Usage: build <hand-index>");
-                        }
-                    } else {
-                        System.out.println("Usage: build <hand-index>");
-                    }
-                    break;
-                case "end":
-                    if (humanTurn) game.pressT();
-                    else           System.out.println("It is not your turn.");
-                    break;
-                case "citadel": case "list": case "city":
-                    int pid = 1;
-                    if (parts.length == 2) {
-                        try { pid = Integer.parseInt(parts[1]); }
-                        catch (NumberFormatException e) {
-                            System.out.println("Usage: " + cmd + " [player#]");
-                            break;
-                        }
-                    }
-                    game.showCity(pid);
-                    break;
-                case "all":
-                    game.showAll();
-                    break;
-                case "save":
-                    if (parts.length == 2) game.save(parts[1]);
-                    else System.out.println("Usage: save <file>");
-                    break;
-                case "load":
-                    if (parts.length == 2) game.load(parts[1]);
-                    else System.out.println("Usage: load <file>");
-                    break;
-                case "debug":
-                    game.toggleDebug();
-                    break;
-                case "help":
-                    game.showHelp();
-                    break;
-                case "info":
-                    if (parts.length != 2) {
-                        System.out.println("Usage: info <character-name> OR info <hand-index>");
-                        break;
-                    }
-                    String arg = parts[1];
-                    try {
-                        int idx = Integer.parseInt(arg);
-                        if (humanTurn) {
-                            game.showCardInfo(idx);
-                        } else {
-                            System.out.println("It is not your turn.");
-                        }
-                        break;
-                    } catch (NumberFormatException e) {
-                        // not an index
-                    }
-
-                    try {
-                        Character c = Character.valueOf(arg.toUpperCase());
-                        switch (c) {
-                            case ASSASSIN:
-                                System.out.println("Assassin (1): Select another character to kill. That character loses their turn.");
-                                break;
-                            case THIEF:
-                                System.out.println("Thief (2): Select another character to rob. You take their gold when their turn begins. Cannot rob Assassin or the killed character.");
-                                break;
-                            case MAGICIAN:
-                                System.out.println("Magician (3): Swap your hand with another player OR discard and redraw any number of cards.");
-                                break;
-                            case KING:
-                                System.out.println("King (4): Gain 1 gold per yellow district. Also gains the crown.");
-                                break;
-                            case BISHOP:
-                                System.out.println("Bishop (5): Gain 1 gold per blue district. Warlord cannot destroy your buildings unless you're assassinated.");
-                                break;
-                            case MERCHANT:
-                                System.out.println("Merchant (6): Gain 1 gold per green district. Also gain 1 extra gold.");
-                                break;
-                            case ARCHITECT:
-                                System.out.println("Architect (7): Draw 2 extra cards. Can build up to 3 districts.");
-                                break;
-                            case WARLORD:
-                                System.out.println("Warlord (8): Gain 1 gold per red district. May destroy one district at a reduced cost (not in 8-district cities).");
-                                break;
-                        }
-                    } catch (IllegalArgumentException e) {
-                        System.out.println("Invalid character name. Try one of: " + game.listAllCharacters());
-                    }
-                    break;
-                default:
-                    System.out.println("Unknown command.");
-                    game.showHelp();
+    /**
+     * Describe the human's character ability, or use it:
+     * kill/rob &lt;character&gt;, swap &lt;player#&gt;, redraw &lt;hand-index&gt;...,
+     * destroy &lt;player#&gt; &lt;district#&gt;.
+     * @param a the command line's words
+     */
+    private void action(Tokens a) {
+        int n = a.count();
+        if (n == 3 && (a.is(1, "kill") || a.is(1, "rob"))) {
+            Character c = a.character(2);
+            if (c != null) {
+                if (a.is(1, "kill")) game.humanKill(c);
+                else                 game.humanRob(c);
+                return;
+            }
+        } else if (n == 3 && a.is(1, "swap")) {
+            int pid = a.number(2);
+            if (pid != Tokens.NOT_A_NUMBER) {
+                game.humanSwap(pid);
+                return;
+            }
+        } else if (n >= 2 && a.is(1, "redraw")) {
+            int mask = 0;
+            boolean ok = true;
+            for (int i = 2; i < n; i++) {
+                int idx = a.number(i);
+                ok &= idx != Tokens.NOT_A_NUMBER;
+                if (idx >= 1 && idx <= Integer.SIZE) mask |= 1 << (idx - 1);
             }
+            if (ok) {
+                game.humanRedraw(mask);
+                return;
+            }
+        } else if (n == 4 && a.is(1, "destroy")) {
+            int pid = a.number(2), idx = a.number(3);
+            if (pid != Tokens.NOT_A_NUMBER && idx != Tokens.NOT_A_NUMBER) {
+                game.humanDestroy(pid, idx);
+                return;
+            }
+        }
+        // No arguments, or bad ones: show what the ability does and its usage
+        game.showAction();
+    }
+
+    /**
+     * Rebuild a journaled game at an event and show its players and scores.
+     * The current game is not affected.
+     * @param file journal written by EventJournal
+     * @param event event number; past the end means the end of the journal
+     */
+    private void replay(String file, int event) {
+        try {
+            JournalReplay replay = JournalReplay.open(new File(file));
+            int index = Math.min(event, replay.eventCount());
+            Game g = replay.gameAt(index);
+            g.setOutput(out);
+            out.printf("Replayed %s to event %d of %d (%s phase).%n", file,
+                index, replay.eventCount(), g.getPhase());
+            g.showAll();
+            g.showScores();
+        } catch (IOException e) {
+            out.println("Replay failed: " + e.getMessage());
         }
     }
 }
@@ -0,0 +1,174 @@
+package citadels;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Renders game events as the text of the interactive console game.
+ */
+public class ConsoleRenderer implements GameEventListener {
+    /** Fixed destination, or null to use System.out at the time of each event. */
+    private final PrintStream fixedOut;
+
+    /** Render to whatever System.out is when each event arrives. */
+    public ConsoleRenderer() {
+        this(null);
+    }
+
+    /**
+     * Render to the given stream.
+     * @param out destination stream
+     */
+    public ConsoleRenderer(PrintStream out) {
+        this.fixedOut = out;
+    }
+
+    private PrintStream out() {
+        return fixedOut != null ? fixedOut : System.out;
+    }
+
+    @Override
+    public void gameStarted(int playerCount, Player crowned) {
+        out().printf("Starting Citadels with %d players...%n", playerCount);
+        out().printf("Player %d is the crowned player and goes first.%n", crowned.getId());
+    }
+
+    @Override
+    public void phaseStarted(Game.Phase phase) {
+        PrintStream out = out();
+        out.println("================================");
+        out.println(phase == Game.Phase.SELECTION ? "SELECTION PHASE" : "TURN PHASE");
+        out.println("================================");
+    }
+
+    @Override
+    public void mysteryCharacterRemoved() {
+        out().println("A mystery character was removed.");
+    }
+
+    @Override
+    public void characterDiscarded(Character c) {
+        out().println(c.name() + " was removed.");
+    }
+
+    @Override
+    public void characterChoiceRequired(Player chooser, List<Character> available) {
+        StringBuilder sb = new StringBuilder();
+        for (Character c : available) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(c.name());
+        }
+        out().println("Available characters: " + sb);
+        out().println("Choose your character.");
+    }
+
+    @Override
+    public void characterChosen(Player p) {
+        out().printf("Player %d chose a character.%n", p.getId());
+    }
+
+    @Override
+    public void turnStarted(int rank, Character c, Player owner) {
+        PrintStream out = out();
+        out.printf("%d: %s  ", rank, c.name());
+        if (owner == null) {
+            out.println("No one is the " + c.name());
+        } else if (owner instanceof HumanPlayer) {
+            out.println("Your turn.");
+            out.println("Choose income: 'income gold' or 'income cards'");
+        } else {
+            out.printf("Player %d is the %s%n", owner.getId(), c.name());
+        }
+    }
+
+    @Override
+    public void goldTaken(Player p, int amount, int total) {
+        if (p instanceof HumanPlayer) {
+            out().println("You chose gold and gained " + amount + " (total=" + total + ").");
+        } else {
+            out().println("AI Player " + p.getId() + " takes " + amount + " gold (total=" + total + ").");
+        }
+    }
+
+    @Override
+    public void cardKept(Player p, DistrictCard kept) {
+        if (p instanceof HumanPlayer) {
+            out().println("You kept: " + kept.display());
+        } else {
+            out().println("AI Player " + p.getId() + " draws income cards, keeps " + kept.display());
+        }
+    }
+
+    @Override
+    public void districtBuilt(Player p, DistrictCard card) {
+        if (p instanceof HumanPlayer) {
+            out().println("Built: " + card.display());
+        } else {
+            out().println("AI Player " + p.getId() + " builds " + card.display());
+        }
+    }
+
+    @Override
+    public void characterKilled(Character c) {
+        out().println("The Assassin kills the " + c.name() + ".");
+    }
+
+    @Override
+    public void characterRobbed(Character c) {
+        out().println("The Thief robs the " + c.name() + ".");
+    }
+
+    @Override
+    public void turnLost(int rank, Character c, Player owner) {
+        PrintStream out = out();
+        out.printf("%d: %s  ", rank, c.name());
+        if (owner instanceof HumanPlayer) {
+            out.println("You were killed and lose this turn.");
+        } else {
+            out.printf("Player %d was killed and loses this turn.%n", owner.getId());
+        }
+    }
+
+    @Override
+    public void goldStolen(Player thief, Player victim, int amount) {
+        out().printf("Player %d steals %d gold from Player %d.%n",
+                     thief.getId(), amount, victim.getId());
+    }
+
+    @Override
+    public void handsSwapped(Player magician, Player other) {
+        out().printf("Player %d swaps hands with Player %d.%n", magician.getId(), other.getId());
+    }
+
+    @Override
+    public void cardsDrawn(Player p, int count) {
+        out().printf("Player %d draws %d card%s.%n", p.getId(), count, count == 1 ? "" : "s");
+    }
+
+    @Override
+    public void characterIncome(Player p, Character c, int amount, int total) {
+        out().printf("Player %d gains %d gold as the %s (total=%d).%n",
+                     p.getId(), amount, c.name(), total);
+    }
+
+    @Override
+    public void districtDestroyed(Player warlord, Player victim, DistrictCard card) {
+        out().printf("Player %d destroys Player %d's %s.%n",
+                     warlord.getId(), victim.getId(), card.display());
+    }
+
+    @Override
+    public void crownPassed(Player p) {
+        out().printf("Player %d takes the crown.%n", p.getId());
+    }
+
+    @Override
+    public void endTriggered(Player p) {
+        out().printf(">>> Player %d has completed 8 districts first!%n", p.getId());
+    }
+
+    @Override
+    public void gameOver(GameResult result) {
+        result.print(out());
+    }
+}
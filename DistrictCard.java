@@ -2,8 +2,15 @@ package citadels;
 
 /**
  * Represents a district card in Citadels.
+ * <p>
+ * Cards from a {@link CardCatalog} are shared, immutable instances that carry
+ * the catalog id; cards built directly with the public constructor have id -1.
  */
 public class DistrictCard {
+    /** Highest cost a district may have. */
+    public static final int MAX_COST = 31;
+
+    private final int id;
     private final String name;
     private final Color color;
     private final int cost;
@@ -15,14 +22,35 @@ public class DistrictCard {
      * @param color the card’s color category
      * @param cost gold cost to build
      * @param text special ability description (or empty)
+     * @throws IllegalArgumentException if cost is not 0…MAX_COST
      */
     public DistrictCard(String name, Color color, int cost, String text) {
+        this(-1, name, color, cost, text);
+    }
+
+    /**
+     * Construct a catalog card.
+     * @param id dense catalog id
+     * @param name human-readable card name
+     * @param color the card’s color category
+     * @param cost gold cost to build
+     * @param text special ability description (or empty)
+     * @throws IllegalArgumentException if cost is not 0…MAX_COST
+     */
+    DistrictCard(int id, String name, Color color, int cost, String text) {
+        if (cost < 0 || cost > MAX_COST) {
+            throw new IllegalArgumentException("District cost must be 0-" + MAX_COST + ": " + cost);
+        }
+        this.id    = id;
         this.name  = name;
         this.color = color;
         this.cost  = cost;
         this.text  = text;
     }
 
+    /** @return catalog id, or -1 if not from a catalog */
+    public int getId() { return id; }
+
     /** @return card name */
     public String getName() { return name; }
 
@@ -1,62 +1,205 @@
 package citadels;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.util.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 
 /**
- * A shuffled deck of DistrictCard read from a TSV definition.
+ * A shuffled deck of the shared DistrictCard instances of a {@link CardCatalog}.
+ * <p>
+ * The draw pile and discard pile are int arrays of card ids. Drawing takes
+ * the id at the top cursor, and shuffling is an in-place Fisher–Yates pass,
+ * so neither allocates. When the draw pile runs out, the discard pile is
+ * shuffled back in. Games of any length can therefore keep drawing for as
+ * long as some cards are out of play.
  */
 public class DistrictDeck {
-    private final Deque<DistrictCard> deck = new ArrayDeque<>();
+    /** Catalog the cards come from. */
+    private final CardCatalog catalog;
+
+    /** Source of shuffle order, normally the owning game's generator. */
+    private final SplitMix64 rng;
+
+    /** Draw pile ids; the top card is drawPile[drawCount - 1]. */
+    private int[] drawPile;
+
+    /** Number of cards left in the draw pile. */
+    private int drawCount;
+
+    /** Discarded ids, waiting to be reshuffled into the draw pile. */
+    private int[] discardPile;
+
+    /** Number of cards in the discard pile. */
+    private int discardCount;
 
     /**
-     * Read cards from a TSV stream, line format:
-     *   Name [tab] Qty [tab] color [tab] cost [tab] text
-     * Then shuffle.
+     * Read cards from a TSV stream and shuffle with an unseeded generator.
      *
      * @param tsvStream InputStream of the TSV data
      * @throws RuntimeException on I/O error
      */
     public DistrictDeck(InputStream tsvStream) {
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(tsvStream, StandardCharsets.UTF_8))) {
-            String line = br.readLine(); // skip header
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split("\t");
-                String name  = parts[0];
-                int    qty   = Integer.parseInt(parts[1]);
-                Color  color = Color.fromString(parts[2]);
-                int    cost  = Integer.parseInt(parts[3]);
-                String text  = parts.length > 4 ? parts[4] : "";
-                for (int i = 0; i < qty; i++) {
-                    deck.add(new DistrictCard(name, color, cost, text));
-                }
-            }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        this(tsvStream, new SplitMix64());
+    }
+
+    /**
+     * Read a private catalog from a TSV stream (see {@link CardCatalog}),
+     * then build and shuffle a full deck from it.
+     *
+     * @param tsvStream InputStream of the TSV data
+     * @param rng generator used for every shuffle of this deck
+     * @throws RuntimeException on I/O error
+     */
+    public DistrictDeck(InputStream tsvStream, SplitMix64 rng) {
+        this(new CardCatalog(tsvStream), rng);
+    }
+
+    /**
+     * Build and shuffle a full deck of the catalog's shared cards.
+     *
+     * @param catalog card definitions and copy counts
+     * @param rng generator used for every shuffle of this deck
+     */
+    public DistrictDeck(CardCatalog catalog, SplitMix64 rng) {
+        this.catalog     = catalog;
+        this.rng         = rng;
+        this.drawPile    = catalog.newDeck();
+        this.drawCount   = drawPile.length;
+        this.discardPile = new int[drawPile.length];
         shuffle();
     }
 
-    /** Shuffle the deck into a new random order. */
+    /**
+     * Copy a deck: same catalog, same piles in the same order.
+     * @param src deck to copy
+     * @param rng generator for the copy's future shuffles
+     */
+    public DistrictDeck(DistrictDeck src, SplitMix64 rng) {
+        this.catalog      = src.catalog;
+        this.rng          = rng;
+        this.drawPile     = src.drawPile.clone();
+        this.drawCount    = src.drawCount;
+        this.discardPile  = src.discardPile.clone();
+        this.discardCount = src.discardCount;
+    }
+
+    /** @return the catalog this deck's cards come from */
+    public CardCatalog getCatalog() {
+        return catalog;
+    }
+
+    /** Shuffle the draw pile into a new random order (in-place Fisher–Yates). */
     public void shuffle() {
-        List<DistrictCard> list = new ArrayList<>(deck);
-        Collections.shuffle(list);
-        deck.clear();
-        deck.addAll(list);
+        int[] a = drawPile;
+        for (int i = drawCount - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
     }
 
     /**
-     * Draw the top card.
-     * @return card or null if empty
+     * Draw the top card, first reshuffling the discard pile into the draw
+     * pile if the draw pile is empty.
+     * @return card, or null if both piles are empty
      */
     public DistrictCard draw() {
-        return deck.poll();
+        if (drawCount == 0 && !recycleDiscards()) return null;
+        return catalog.get(drawPile[--drawCount]);
     }
 
-    /** @return true if no cards remain */
+    /**
+     * Put a card on the discard pile, e.g. the income card a player did not
+     * keep. Cards that are not from this deck's catalog are ignored.
+     * @param card the discarded card
+     */
+    public void discard(DistrictCard card) {
+        int id = card.getId();
+        if (id < 0 || id >= catalog.size() || catalog.get(id) != card) return;
+        if (discardCount == discardPile.length) {
+            discardPile = Arrays.copyOf(discardPile, discardCount * 2 + 1);
+        }
+        discardPile[discardCount++] = id;
+    }
+
+    /**
+     * Move all discards into the draw pile and shuffle it.
+     * @return false if there were no discards to recycle
+     */
+    private boolean recycleDiscards() {
+        if (discardCount == 0) return false;
+        if (drawPile.length < drawCount + discardCount) {
+            drawPile = Arrays.copyOf(drawPile, drawCount + discardCount);
+        }
+        System.arraycopy(discardPile, 0, drawPile, drawCount, discardCount);
+        drawCount += discardCount;
+        discardCount = 0;
+        shuffle();
+        return true;
+    }
+
+    /**
+     * @return the live draw pile; ids [0, size()) are in play, the top
+     *         last. Callers may reorder those ids (e.g. to redeal hidden cards).
+     */
+    int[] drawPile() {
+        return drawPile;
+    }
+
+    /** @return number of cards left in the draw pile */
+    public int size() {
+        return drawCount;
+    }
+
+    /** @return number of cards waiting in the discard pile */
+    public int discardSize() {
+        return discardCount;
+    }
+
+    /** @return true if no cards remain to draw, counting recyclable discards */
     public boolean isEmpty() {
-        return deck.isEmpty();
+        return drawCount == 0 && discardCount == 0;
+    }
+
+    /**
+     * Write both piles, in order, for a binary snapshot.
+     * @param out destination
+     * @throws IOException if the destination fails
+     */
+    void writeState(DataOutput out) throws IOException {
+        writePile(out, drawPile, drawCount);
+        writePile(out, discardPile, discardCount);
+    }
+
+    private static void writePile(DataOutput out, int[] pile, int count) throws IOException {
+        out.writeShort(count);
+        for (int i = 0; i < count; i++) out.writeShort(pile[i]);
+    }
+
+    /**
+     * Replace both piles with ones written by {@link #writeState}. The deck
+     * is unchanged if the source fails part way.
+     * @param in source
+     * @throws IOException if the source fails or holds an unknown card id
+     */
+    void readState(DataInput in) throws IOException {
+        int[] draw = readPile(in);
+        int[] discard = readPile(in);
+        drawCount    = draw.length;
+        discardCount = discard.length;
+        drawPile     = Arrays.copyOf(draw, Math.max(draw.length, catalog.deckSize()));
+        discardPile  = Arrays.copyOf(discard, Math.max(discard.length, catalog.deckSize()));
+    }
+
+    private int[] readPile(DataInput in) throws IOException {
+        int[] pile = new int[in.readUnsignedShort()];
+        for (int i = 0; i < pile.length; i++) {
+            pile[i] = in.readUnsignedShort();
+            catalog.checkId(pile[i]);
+        }
+        return pile;
     }
 }
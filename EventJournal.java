@@ -0,0 +1,312 @@
+package citadels;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Records a game as a compact stream of events in a memory-mapped,
+ * append-only journal file, for replay and post-game analysis with
+ * {@link JournalReplay}.
+ * <p>
+ * Each record is a type byte and a small fixed-size payload: one per event
+ * (selection draws and picks, discards, income, builds, …), one per action
+ * reported to the game's {@link ActionLog}, and every {@code snapshotEvery}
+ * actions a full binary snapshot. Replay seeks to the nearest snapshot and
+ * re-applies the actions after it, so no game has to be re-run from the
+ * start. Events are written straight into the mapping; the file grows by
+ * remapping at twice the size and is trimmed when the journal is closed.
+ * <p>
+ * The journal passes every event and action on to the listener and log
+ * the game had before it was attached.
+ */
+public class EventJournal implements GameEventListener, ActionLog, AutoCloseable {
+    /** First four bytes of a journal ("CTEJ"). */
+    static final int MAGIC = 0x4354454A;
+
+    /** Journal format written by this version. */
+    static final int VERSION = 1;
+
+    /** Header bytes: magic, version. */
+    static final int HEADER_BYTES = 6;
+
+    /** Record types; 0 marks the end of the journal. */
+    static final byte END = 0, GAME_STARTED = 1, PHASE_STARTED = 2, MYSTERY_REMOVED = 3,
+        CHARACTER_DISCARDED = 4, CHOICE_REQUIRED = 5, CHARACTER_CHOSEN = 6,
+        TURN_STARTED = 7, GOLD_TAKEN = 8, CARD_KEPT = 9, DISTRICT_BUILT = 10,
+        END_TRIGGERED = 11, GAME_OVER = 12, CHARACTER_KILLED = 13, CHARACTER_ROBBED = 14,
+        TURN_LOST = 15, GOLD_STOLEN = 16, HANDS_SWAPPED = 17, CARDS_DRAWN = 18,
+        CHARACTER_INCOME = 19, DISTRICT_DESTROYED = 20, CROWN_PASSED = 21,
+        ACTION = 64, SNAPSHOT = 65;
+
+    /** Payload bytes of each event record type (index = type). */
+    static final int[] EVENT_BYTES = { 0, 2, 1, 0, 1, 2, 1, 3, 5, 3, 3, 1, 0,
+                                       1, 1, 3, 4, 2, 2, 6, 4, 1 };
+
+    /** Payload bytes of an ACTION record: action byte, int argument. */
+    static final int ACTION_BYTES = 5;
+
+    /** Default number of actions between embedded snapshots. */
+    public static final int DEFAULT_SNAPSHOT_EVERY = 256;
+
+    private final FileChannel channel;
+    private final GameEventListener next;
+    private final ActionLog nextLog;
+    private final int snapshotEvery;
+    private MappedByteBuffer buf;
+    private int sinceSnapshot;
+
+    private EventJournal(FileChannel channel, GameEventListener next, ActionLog nextLog,
+                         int snapshotEvery) throws IOException {
+        this.channel = channel;
+        this.next = next;
+        this.nextLog = nextLog;
+        this.snapshotEvery = snapshotEvery;
+        this.buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, 64 * 1024);
+        buf.putInt(MAGIC).putShort((short) VERSION);
+    }
+
+    /**
+     * Start journaling a game from its current state.
+     * @param game game to record
+     * @param file journal file (replaced if it exists)
+     * @param snapshotEvery actions between embedded snapshots
+     * @return the journal; close it to trim and flush the file
+     * @throws IOException if the file cannot be created
+     * @throws IllegalArgumentException if snapshotEvery &lt; 1
+     */
+    public static EventJournal attach(Game game, File file, int snapshotEvery) throws IOException {
+        if (snapshotEvery < 1) {
+            throw new IllegalArgumentException("snapshotEvery must be at least 1");
+        }
+        FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        EventJournal j = new EventJournal(ch, game.getEventListener(), game.getActionLog(),
+                                          snapshotEvery);
+        game.setEventListener(j);
+        game.setActionLog(j);
+        j.snapshot(game);
+        return j;
+    }
+
+    /** Make room for n more bytes plus the end marker, remapping if needed. */
+    private void reserve(int n) {
+        if (buf.remaining() > n) return;
+        int pos = buf.position();
+        long size = Math.max(buf.capacity() * 2L, pos + n + 1L);
+        try {
+            buf.force();
+            buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buf.position(pos);
+    }
+
+    private void event(byte type) {
+        reserve(1 + EVENT_BYTES[type]);
+        buf.put(type);
+    }
+
+    private static byte seat(Player p) {
+        return (byte) (p == null ? 0 : p.getId());
+    }
+
+    private static short card(DistrictCard d) {
+        return (short) d.getId();
+    }
+
+    /**
+     * Write a full snapshot record of the game's current state.
+     * @param game the game being journaled
+     */
+    private void snapshot(Game game) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try {
+            game.writeSnapshot(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen for a byte array
+        }
+        reserve(5 + bytes.size());
+        buf.put(SNAPSHOT).putInt(bytes.size()).put(bytes.toByteArray());
+        sinceSnapshot = 0;
+    }
+
+    @Override
+    public void actionApplied(Game game, int action, int arg) {
+        if (action != RESTORED) {
+            reserve(1 + ACTION_BYTES);
+            buf.put(ACTION).put((byte) action).putInt(arg);
+        }
+        nextLog.actionApplied(game, action, arg);
+        if (action == RESTORED || ++sinceSnapshot >= snapshotEvery) {
+            snapshot(game);
+        }
+    }
+
+    /**
+     * Flush the mapping, trim the file to the bytes written and close it.
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        int length = buf.position();
+        buf.force();
+        buf = null;
+        channel.truncate(length);
+        channel.close();
+    }
+
+    @Override
+    public void gameStarted(int playerCount, Player crowned) {
+        event(GAME_STARTED);
+        buf.put((byte) playerCount).put(seat(crowned));
+        next.gameStarted(playerCount, crowned);
+    }
+
+    @Override
+    public void phaseStarted(Game.Phase phase) {
+        event(PHASE_STARTED);
+        buf.put((byte) phase.ordinal());
+        next.phaseStarted(phase);
+    }
+
+    @Override
+    public void mysteryCharacterRemoved() {
+        event(MYSTERY_REMOVED);
+        next.mysteryCharacterRemoved();
+    }
+
+    @Override
+    public void characterDiscarded(Character c) {
+        event(CHARACTER_DISCARDED);
+        buf.put((byte) c.ordinal());
+        next.characterDiscarded(c);
+    }
+
+    @Override
+    public void characterChoiceRequired(Player chooser, List<Character> available) {
+        int mask = 0;
+        for (Character c : available) mask |= 1 << c.ordinal();
+        event(CHOICE_REQUIRED);
+        buf.put(seat(chooser)).put((byte) mask);
+        next.characterChoiceRequired(chooser, available);
+    }
+
+    @Override
+    public void characterChosen(Player p) {
+        event(CHARACTER_CHOSEN);
+        buf.put(seat(p));
+        next.characterChosen(p);
+    }
+
+    @Override
+    public void turnStarted(int rank, Character c, Player owner) {
+        event(TURN_STARTED);
+        buf.put((byte) rank).put((byte) c.ordinal()).put(seat(owner));
+        next.turnStarted(rank, c, owner);
+    }
+
+    @Override
+    public void goldTaken(Player p, int amount, int total) {
+        event(GOLD_TAKEN);
+        buf.put(seat(p)).putShort((short) amount).putShort((short) total);
+        next.goldTaken(p, amount, total);
+    }
+
+    @Override
+    public void cardKept(Player p, DistrictCard kept) {
+        event(CARD_KEPT);
+        buf.put(seat(p)).putShort(card(kept));
+        next.cardKept(p, kept);
+    }
+
+    @Override
+    public void districtBuilt(Player p, DistrictCard card) {
+        event(DISTRICT_BUILT);
+        buf.put(seat(p)).putShort(card(card));
+        next.districtBuilt(p, card);
+    }
+
+    @Override
+    public void characterKilled(Character c) {
+        event(CHARACTER_KILLED);
+        buf.put((byte) c.ordinal());
+        next.characterKilled(c);
+    }
+
+    @Override
+    public void characterRobbed(Character c) {
+        event(CHARACTER_ROBBED);
+        buf.put((byte) c.ordinal());
+        next.characterRobbed(c);
+    }
+
+    @Override
+    public void turnLost(int rank, Character c, Player owner) {
+        event(TURN_LOST);
+        buf.put((byte) rank).put((byte) c.ordinal()).put(seat(owner));
+        next.turnLost(rank, c, owner);
+    }
+
+    @Override
+    public void goldStolen(Player thief, Player victim, int amount) {
+        event(GOLD_STOLEN);
+        buf.put(seat(thief)).put(seat(victim)).putShort((short) amount);
+        next.goldStolen(thief, victim, amount);
+    }
+
+    @Override
+    public void handsSwapped(Player magician, Player other) {
+        event(HANDS_SWAPPED);
+        buf.put(seat(magician)).put(seat(other));
+        next.handsSwapped(magician, other);
+    }
+
+    @Override
+    public void cardsDrawn(Player p, int count) {
+        event(CARDS_DRAWN);
+        buf.put(seat(p)).put((byte) count);
+        next.cardsDrawn(p, count);
+    }
+
+    @Override
+    public void characterIncome(Player p, Character c, int amount, int total) {
+        event(CHARACTER_INCOME);
+        buf.put(seat(p)).put((byte) c.ordinal()).putShort((short) amount).putShort((short) total);
+        next.characterIncome(p, c, amount, total);
+    }
+
+    @Override
+    public void districtDestroyed(Player warlord, Player victim, DistrictCard card) {
+        event(DISTRICT_DESTROYED);
+        buf.put(seat(warlord)).put(seat(victim)).putShort(card(card));
+        next.districtDestroyed(warlord, victim, card);
+    }
+
+    @Override
+    public void crownPassed(Player p) {
+        event(CROWN_PASSED);
+        buf.put(seat(p));
+        next.crownPassed(p);
+    }
+
+    @Override
+    public void endTriggered(Player p) {
+        event(END_TRIGGERED);
+        buf.put(seat(p));
+        next.endTriggered(p);
+    }
+
+    @Override
+    public void gameOver(GameResult result) {
+        event(GAME_OVER);
+        next.gameOver(result);
+    }
+}
@@ -12,7 +12,8 @@ import org.json.simple.parser.JSONParser;
  * Core game engine for Citadels.
  * <p>
  * Manages phases (SELECTION vs TURN), character assignments, player turns,
- * income/build actions, saving/loading, and end-of-game scoring.
+ * income/build actions, character abilities (see {@link Abilities}),
+ * saving/loading, and end-of-game scoring.
  */
 public class Game implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -20,6 +21,47 @@ public class Game implements Serializable {
     /** Game phases: character selection or playing turns. */
     public enum Phase { SELECTION, TURN }
 
+    /**
+     * Input the game is waiting for before play can go on. Answered by
+     * {@link #answer}; a game with an {@link InputSource} answers its own
+     * prompts and so never rests in a state other than NONE.
+     */
+    public enum Prompt {
+        /** Not waiting: play goes on with commands and steps. */
+        NONE,
+        /** Awaiting the number of players, 4 to 7. */
+        PLAYER_COUNT,
+        /** Awaiting which of the two drawn income cards to keep, 1 or 2. */
+        CARD_CHOICE
+    }
+
+    /** Points for having all five colors in a city. */
+    private static final int DIVERSITY_BONUS = 3;
+
+    /** Points for being the first to complete 8 districts. */
+    private static final int FIRST_COMPLETE_BONUS = 4;
+
+    /** Points for completing 8 districts after someone else. */
+    private static final int OTHER_COMPLETE_BONUS = 2;
+
+    /** All characters in rank order; cached to avoid values() copies. */
+    private static final Character[] CHARACTERS = Character.values();
+
+    /** First four bytes of every binary snapshot ("CTDL"). */
+    private static final int SNAPSHOT_MAGIC = 0x4354444C;
+
+    /** Binary snapshot format written by this version. */
+    static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * Steps after which a game being played out is given up as stuck;
+     * games between default AIs take a few hundred.
+     */
+    public static final int MAX_STEPS = 10_000;
+
+    /** Snapshot seat tags. */
+    private static final int HUMAN_SEAT = 0, AI_SEAT = 1, MCTS_SEAT = 2;
+
     // ─── Fields ──────────────────────────────────────────────────────────────
 
     /** Current phase of the game. */
@@ -31,17 +73,26 @@ public class Game implements Serializable {
     /** All players in play (index 0 is human). */
     private final List<Player> players = new ArrayList<>();
 
-    /** Characters available to pick this round. */
-    private final List<Character> availableChars = new ArrayList<>();
+    /** Characters available to pick this round, as a {@link CharacterMask}. */
+    private int availableMask;
+
+    /** Seat index (0-based) holding each character by ordinal; -1 if unpicked. */
+    private final int[] ownerSeat = new int[CHARACTERS.length];
 
-    /** Mapping of each player to their chosen character. */
-    private final Map<Player, Character> assignments = new HashMap<>();
+    /** Character chosen by each seat this round; null if not yet picked. */
+    private final Character[] seatCharacter = new Character[GameConfig.MAX_PLAYERS];
 
-    /** Face-up discarded characters in selection. */
-    private final List<Character> faceUpDiscards = new ArrayList<>();
+    /** Number of seats that have picked a character this round. */
+    private int picks;
 
-    /** One mystery discard, hidden from all. */
-    private Character mysteryDiscard;
+    /** XOR of the Zobrist keys of every (seat, character) assignment. */
+    private long assignHash;
+
+    /** Face-up discarded characters in selection, as a {@link CharacterMask}. */
+    private int faceUpMask;
+
+    /** One mystery discard, hidden from all; 0 until this round's discards are dealt. */
+    private int mysteryMask;
 
     /** Index in players[] whose turn to pick character. */
     private int chooserIndex;
@@ -55,8 +106,17 @@ public class Game implements Serializable {
     /** Has current player taken income this turn? */
     private boolean incomeTaken;
 
-    /** Has current player built this turn? */
-    private boolean builtThisTurn;
+    /** Districts the current player has built this turn. */
+    private int buildsThisTurn;
+
+    /** Has the current player used their character's active ability this turn? */
+    private boolean abilityUsed;
+
+    /** Character killed by the Assassin this round, as a {@link CharacterMask}; 0 if none. */
+    private int killedMask;
+
+    /** Character robbed by the Thief this round, as a {@link CharacterMask}; 0 if none. */
+    private int robbedMask;
 
     /** Debug prints extra info when true. */
     private boolean debugMode = false;
@@ -64,57 +124,395 @@ public class Game implements Serializable {
     /** End-game triggered when someone builds 8th district. */
     private boolean endTriggered = false;
 
-    /** ID of first player to complete 8 districts. */
-    private int firstCompleter = 0;
+    /** Number of players who have completed 8 districts so far. */
+    private int completions = 0;
+
+    /** Receives every game event; NO_OP for headless games. */
+    private GameEventListener events;
+
+    /** Receives every state-changing action; NONE unless autosaving. */
+    private ActionLog actions = ActionLog.NONE;
+
+    /** Exit the JVM after printing the final scores (interactive play). */
+    private final boolean exitOnEnd;
+
+    /** Set once the game has been scored. */
+    private boolean finished = false;
+
+    /** Final scores, once finished. */
+    private GameResult result;
+
+    /** The game's only source of randomness: deck, crown, draft and AI. */
+    private final SplitMix64 rng;
+
+    /** Answers prompts as they are raised, or null to wait in a Prompt state. */
+    private transient InputSource input;
+
+    /** Input the game is waiting for. */
+    private Prompt prompt = Prompt.NONE;
+
+    /** The two income cards drawn while awaiting CARD_CHOICE. */
+    private DistrictCard choice1, choice2;
+
+    /** Fixed console output, or null to use System.out at the time of each message. */
+    private transient PrintStream fixedOut;
 
     // ─── Constructor ─────────────────────────────────────────────────────────
 
     /**
      * Initialize game: shuffle deck, add characters, prompt for player count,
-     * deal 4 cards to each, choose starting player.
+     * deal 4 cards to each, choose starting player. Reads System.in, writes
+     * System.out and exits the JVM once the game is scored.
      */
     public Game() {
-        System.out.println("Shuffling deck...");
-        this.districtDeck = new DistrictDeck(
-            getClass().getResourceAsStream("/citadels/cards.tsv")
-        );
-        System.out.println("Adding characters...");
-        Collections.addAll(availableChars, Character.values());
-        initPlayers();
-        System.out.println("Dealing cards...");
-        for (Player p : players) p.draw(districtDeck, 4);
-        System.out.printf("Starting Citadels with %d players...%n", players.size());
-        System.out.println("You are player 1");
-        chooserIndex = new Random().nextInt(players.size());
-        System.out.printf("Player %d is the crowned player and goes first.%n",
-                          players.get(chooserIndex).getId());
-        System.out.println("Press t to process turns");
-        printPhaseHeader();
-    }
-
-    /**
-     * Prompt user for number of players [4–7], create HumanPlayer(1)
-     * and AIPlayer(2…n).
-     */
-    private void initPlayers() {
-        Scanner sc = new Scanner(System.in);
-        int n;
-        do {
-            System.out.print("Enter how many players [4-7]: ");
-            try { n = Integer.parseInt(sc.nextLine().trim()); }
-            catch (Exception e) { n = -1; }
-        } while (n < 4 || n > 7);
+        this(InputSource.STDIN, null, true);
+    }
+
+    /**
+     * Initialize an interactive game that never blocks on input, e.g. one
+     * of many tables on a server: the game starts in the
+     * {@link Prompt#PLAYER_COUNT} state and each prompt waits for
+     * {@link #answer}. Messages go to the given stream only, and the game
+     * does not exit the JVM when it ends.
+     * @param out console output
+     */
+    public Game(PrintStream out) {
+        this(null, out, false);
+    }
+
+    /**
+     * Initialize an interactive game.
+     * @param in answers prompts as they are raised, or null to wait for
+     *        {@link #answer}
+     * @param out console output, or null for System.out
+     * @param exitOnEnd exit the JVM once the game is scored
+     * @throws UncheckedIOException if the input fails or ends before a
+     *         player count is given
+     */
+    Game(InputSource in, PrintStream out, boolean exitOnEnd) {
+        this.input     = in;
+        this.fixedOut  = out;
+        this.events    = new ConsoleRenderer(out);
+        this.exitOnEnd = exitOnEnd;
+        this.rng = new SplitMix64();
+        out().println("Shuffling deck...");
+        this.districtDeck = new DistrictDeck(CardCatalog.standard(), rng);
+        out().println("Adding characters...");
+        availableMask = CharacterMask.ALL;
+        clearAssignments();
+        raise(Prompt.PLAYER_COUNT);
+    }
+
+    /**
+     * Seat the players once their number is known: a human as player 1
+     * and AIs after, deal 4 cards to each and choose the crowned player.
+     */
+    private void finishSetup(int n) {
         players.add(new HumanPlayer(1));
         for (int i = 2; i <= n; i++) {
             players.add(new AIPlayer(i));
         }
+        out().println("Dealing cards...");
+        for (Player p : players) p.draw(districtDeck, 4);
+        out().printf("Starting Citadels with %d players...%n", players.size());
+        out().println("You are player 1");
+        chooserIndex = rng.nextInt(players.size());
+        out().printf("Player %d is the crowned player and goes first.%n",
+                     players.get(chooserIndex).getId());
+        out().println("Press t to process turns");
+        events.phaseStarted(phase);
+    }
+
+    /**
+     * Build a game from an explicit configuration, without reading from
+     * System.in. Deals 4 cards to each player and chooses the crowned player.
+     * Two games built from configs with the same seed play out identically.
+     * @param config seats, output and random-source settings
+     */
+    public Game(GameConfig config) {
+        this.events    = config.getEventListener();
+        this.exitOnEnd = config.isExitOnEnd();
+        this.rng = config.newRandom();
+        this.districtDeck = new DistrictDeck(CardCatalog.standard(), rng);
+        availableMask = CharacterMask.ALL;
+        clearAssignments();
+        players.addAll(config.getPlayers());
+        for (Player p : players) p.draw(districtDeck, 4);
+        chooserIndex = rng.nextInt(players.size());
+        events.gameStarted(players.size(), players.get(chooserIndex));
+        events.phaseStarted(phase);
+    }
+
+    /**
+     * Empty game, filled in by {@link #readFrom}.
+     */
+    private Game(GameEventListener events, boolean exitOnEnd) {
+        this.events    = events;
+        this.exitOnEnd = exitOnEnd;
+        this.rng = new SplitMix64();
+        this.districtDeck = new DistrictDeck(CardCatalog.standard(), rng);
+        clearAssignments();
+    }
+
+    /**
+     * Independent copy of a game's position, see {@link #fork()}.
+     * @param aiOnly replace every seat by a default AIPlayer
+     */
+    private Game(Game src, SplitMix64 rng, boolean aiOnly) {
+        this.events    = GameEventListener.NO_OP;
+        this.exitOnEnd = false;
+        this.rng       = rng;
+        this.districtDeck = new DistrictDeck(src.districtDeck, rng);
+        for (Player p : src.players) {
+            players.add(aiOnly ? new AIPlayer(p.getId()).copyStateFrom(p) : p.copy());
+        }
+        availableMask = src.availableMask;
+        System.arraycopy(src.ownerSeat, 0, ownerSeat, 0, ownerSeat.length);
+        System.arraycopy(src.seatCharacter, 0, seatCharacter, 0, seatCharacter.length);
+        assignHash = src.assignHash;
+        faceUpMask = src.faceUpMask;
+        int current = src.players.indexOf(src.currentPlayer);
+        phase           = src.phase;
+        picks           = src.picks;
+        mysteryMask     = src.mysteryMask;
+        chooserIndex    = src.chooserIndex;
+        turnRankPointer = src.turnRankPointer;
+        currentPlayer   = current < 0 ? null : players.get(current);
+        incomeTaken     = src.incomeTaken;
+        prompt          = src.prompt;
+        choice1         = src.choice1;
+        choice2         = src.choice2;
+        buildsThisTurn  = src.buildsThisTurn;
+        abilityUsed     = src.abilityUsed;
+        killedMask      = src.killedMask;
+        robbedMask      = src.robbedMask;
+        endTriggered    = src.endTriggered;
+        completions     = src.completions;
+        finished        = src.finished;
+        result          = src.result;
+    }
+
+    /**
+     * Copy this position for look-ahead search. The fork shares only
+     * immutable data (cards, characters, a finished game's result) and is
+     * headless: no events, no action log, no debug output, no exit. Its
+     * generator is split from this game's, so the fork's future draws are
+     * independent of this game's (and reproducible if this game is seeded).
+     * @return the fork
+     */
+    public Game fork() {
+        return new Game(this, rng.split(), false);
+    }
+
+    /**
+     * Copy this position with a generator of the caller's choosing; unlike
+     * {@link #fork()} this leaves this game's generator untouched.
+     * @param seed seed for the fork's generator
+     * @return the fork
+     */
+    public Game fork(long seed) {
+        return new Game(this, new SplitMix64(seed), false);
+    }
+
+    /**
+     * Fork this position as one seat sees it, for a search rollout: every
+     * seat becomes a default AIPlayer, and what that seat cannot see is
+     * redealt at random. Opponents' hands are shuffled with the draw pile
+     * (hand sizes kept), and characters picked by opponents but not yet
+     * revealed are shuffled among those opponents and the face-down
+     * discard. Only reads this game, so several threads may fork it at once.
+     * @param seed seed for the fork's generator and the redeal
+     * @param viewer seat index of the searching player
+     * @return the determinized fork
+     */
+    Game rolloutFork(long seed, int viewer) {
+        Game g = new Game(this, new SplitMix64(seed), true);
+        g.determinize(viewer);
+        return g;
+    }
+
+    /** Redeal hidden cards and characters; see rolloutFork(). */
+    private void determinize(int viewer) {
+        CardCatalog catalog = districtDeck.getCatalog();
+        int[] draw = districtDeck.drawPile();
+        int n = districtDeck.size(), total = n;
+        for (int s = 0; s < players.size(); s++) {
+            if (s != viewer) total += players.get(s).getHandSize();
+        }
+        int[] pool = Arrays.copyOf(draw, total);
+        int k = n;
+        for (int s = 0; s < players.size(); s++) {
+            if (s == viewer) continue;
+            for (DistrictCard d : players.get(s).hand) if (d.getId() >= 0) pool[k++] = d.getId();
+        }
+        for (int i = k - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1), t = pool[i];
+            pool[i] = pool[j];
+            pool[j] = t;
+        }
+        System.arraycopy(pool, 0, draw, 0, n);
+        k = n;
+        for (int s = 0; s < players.size(); s++) {
+            if (s == viewer) continue;
+            List<DistrictCard> hand = players.get(s).hand;
+            for (int i = 0; i < hand.size(); i++) {
+                if (hand.get(i).getId() >= 0) hand.set(i, catalog.get(pool[k++]));
+            }
+        }
+
+        // Hidden characters: opponents' picks not yet called, plus the mystery discard
+        Character mine = seatCharacter[viewer];
+        int called = phase == Phase.TURN ? turnRankPointer : 0;
+        Character[] hidden = new Character[CHARACTERS.length];
+        int h = 0;
+        int seen = faceUpMask | (phase == Phase.SELECTION ? availableMask : 0);
+        for (Character c : CHARACTERS) {
+            if (c == mine || c.rank <= called || (seen & CharacterMask.bit(c)) != 0) continue;
+            hidden[h++] = c;
+        }
+        int[] seats = new int[players.size()];
+        int m = 0;
+        for (int s = 0; s < players.size(); s++) {
+            Character c = seatCharacter[s];
+            if (s != viewer && c != null && c.rank > called) seats[m++] = s;
+        }
+        if (m == 0 || h < m) return;
+        for (int i = h - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            Character t = hidden[i];
+            hidden[i] = hidden[j];
+            hidden[j] = t;
+        }
+        for (int i = 0; i < m; i++) {
+            Character old = seatCharacter[seats[i]];
+            ownerSeat[old.ordinal()] = -1;
+            assignHash ^= Zobrist.key(Zobrist.CHARACTER, seats[i], old.ordinal());
+        }
+        for (int i = 0; i < m; i++) {
+            seatCharacter[seats[i]] = hidden[i];
+            ownerSeat[hidden[i].ordinal()] = seats[i];
+            assignHash ^= Zobrist.key(Zobrist.CHARACTER, seats[i], hidden[i].ordinal());
+        }
+        if (mysteryMask != 0 && h > m) mysteryMask = CharacterMask.bit(hidden[m]);
+    }
+
+    /**
+     * Restore a headless game from a binary snapshot (see
+     * {@link #writeSnapshot}).
+     * @param in snapshot source
+     * @param events listener for the restored game's events
+     * @return the restored game
+     * @throws IOException if the source fails or is not a valid snapshot
+     */
+    public static Game readFrom(DataInput in, GameEventListener events) throws IOException {
+        return readFrom(in, events, false);
+    }
+
+    /**
+     * Restore a game from a binary snapshot.
+     * @param in snapshot source
+     * @param events listener for the restored game's events
+     * @param exitOnEnd exit the JVM once the restored game is scored
+     * @return the restored game
+     * @throws IOException if the source fails or is not a valid snapshot
+     */
+    static Game readFrom(DataInput in, GameEventListener events, boolean exitOnEnd)
+            throws IOException {
+        Game g = new Game(events, exitOnEnd);
+        g.readSnapshot(in);
+        return g;
+    }
+
+    /** @return the console output: the fixed stream, or System.out */
+    PrintStream out() {
+        return fixedOut != null ? fixedOut : System.out;
+    }
+
+    /**
+     * Use a different console output, e.g. for a game replayed inside a
+     * network session. Events still go to the listener.
+     * @param out console output, or null for System.out
+     */
+    void setOutput(PrintStream out) {
+        this.fixedOut = out;
+    }
+
+    /**
+     * Choose how prompts are answered from now on.
+     * @param in source that answers prompts as they are raised, or null to
+     *        wait in a {@link Prompt} state for {@link #answer}
+     */
+    void setInput(InputSource in) {
+        this.input = in;
+    }
+
+    // ─── Prompts ─────────────────────────────────────────────────────────────
+
+    /** @return the input the game is waiting for; NONE when play can go on */
+    public Prompt getPrompt()               { return prompt;              }
+
+    /**
+     * Wait for some input: print the question, then answer it from the
+     * input source if there is one, or leave the game in the prompt state.
+     * @throws UncheckedIOException if the input source fails or ends
+     */
+    private void raise(Prompt p) {
+        prompt = p;
+        ask();
+        if (input == null) return;
+        while (prompt != Prompt.NONE) {
+            out().flush();
+            String line;
+            try {
+                line = input.nextLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (line == null) {
+                throw new UncheckedIOException(new EOFException("Console input ended"));
+            }
+            answer(line);
+        }
+    }
+
+    /** Print the question for the pending prompt. */
+    private void ask() {
+        switch (prompt) {
+            case PLAYER_COUNT: out().print("Enter how many players [4-7]: "); break;
+            case CARD_CHOICE:  out().print("Pick 1 or 2: "); break;
+            default: break;
+        }
     }
 
-    /** Print a header showing current phase. */
-    private void printPhaseHeader() {
-        System.out.println("================================");
-        System.out.println(phase == Phase.SELECTION ? "SELECTION PHASE" : "TURN PHASE");
-        System.out.println("================================");
+    /**
+     * Answer the pending prompt. An answer that does not fit repeats the
+     * question and leaves the prompt pending.
+     * @param line the answer, e.g. "5" for the player count or "2" to keep
+     *        the second income card
+     * @return true if the answer was taken
+     */
+    public boolean answer(String line) {
+        if (prompt == Prompt.NONE) {
+            out().println("Nothing to answer.");
+            return false;
+        }
+        int n = Tokens.number(line);
+        if (prompt == Prompt.PLAYER_COUNT) {
+            if (n < GameConfig.MIN_PLAYERS || n > GameConfig.MAX_PLAYERS) {
+                ask();
+                return false;
+            }
+            prompt = Prompt.NONE;
+            finishSetup(n);
+        } else {
+            if (n != 1 && n != 2) {
+                ask();
+                return false;
+            }
+            prompt = Prompt.NONE;
+            keepIncomeCard(n);
+        }
+        return true;
     }
 
     // ─── Processing ──────────────────────────────────────────────────────────
@@ -123,8 +521,38 @@ public class Game implements Serializable {
      * Process one "t" command: either a selection-phase step or a turn-phase step.
      */
     public void processT() {
+        if (finished) return;
+        if (prompt != Prompt.NONE) {
+            ask();
+            return;
+        }
         if (phase == Phase.SELECTION) doSelectionStep();
         else                         doTurnStep();
+        actions.actionApplied(this, ActionLog.STEP, 0);
+    }
+
+    /**
+     * Re-execute an action reported to an {@link ActionLog}, e.g. while
+     * replaying a write-ahead log onto a restored snapshot.
+     * @param action one of the ActionLog constants
+     * @param arg the action's argument
+     * @throws IllegalArgumentException for an unknown action
+     */
+    public void apply(int action, int arg) {
+        switch (action) {
+            case ActionLog.STEP:         processT(); break;
+            case ActionLog.CHOOSE:       chooseCharacter(CHARACTERS[arg].name()); break;
+            case ActionLog.INCOME_GOLD:  humanTakeGoldIncome(); break;
+            case ActionLog.INCOME_CARDS: drawIncome(arg); break;
+            case ActionLog.BUILD:        humanBuild(arg); break;
+            case ActionLog.KILL:         humanKill(CHARACTERS[arg]); break;
+            case ActionLog.ROB:          humanRob(CHARACTERS[arg]); break;
+            case ActionLog.SWAP:         humanSwap(arg); break;
+            case ActionLog.REDRAW:       humanRedraw(arg); break;
+            case ActionLog.DESTROY:      humanDestroy(arg >> 8, arg & 0xFF); break;
+            case ActionLog.AUTOPLAY:     autoplayHuman(); break;
+            default: throw new IllegalArgumentException("Unknown action " + action);
+        }
     }
 
     /** Alias for processT(), used by CommandProcessor. */
@@ -134,12 +562,16 @@ public class Game implements Serializable {
 
     /** Handle one selection-phase action (draw/discard/pick). */
     private void doSelectionStep() {
-        if (mysteryDiscard != null && availableChars.isEmpty()) {
-            Collections.addAll(availableChars, Character.values());
+        if (mysteryMask != 0 && availableMask == 0) {
+            // Last picker with 7 players: offer the discards, never a held character
+            availableMask = CharacterMask.ALL;
+            for (int s = 0; s < players.size(); s++) {
+                if (seatCharacter[s] != null) availableMask &= ~CharacterMask.bit(seatCharacter[s]);
+            }
         }
-        if (mysteryDiscard == null) {
-            mysteryDiscard = drawAndRemove();
-            System.out.println("A mystery character was removed.");
+        if (mysteryMask == 0) {
+            mysteryMask = drawAndRemove(availableMask);
+            events.mysteryCharacterRemoved();
             int faceUpCount;
             switch (players.size()) {
                 case 4: case 6: faceUpCount = 2; break;
@@ -147,28 +579,29 @@ public class Game implements Serializable {
                 default: faceUpCount = 0;
             }
             for (int i = 0; i < faceUpCount; i++) {
-                Character c = drawAndRemove();
-                if (c == Character.KING) {
-                    System.out.println("King was removed. The King cannot be visibly removed, trying again..");
-                    availableChars.add(c);
-                    Collections.shuffle(availableChars);
-                    i--;
-                } else {
-                    faceUpDiscards.add(c);
-                    System.out.println(c.name() + " was removed.");
-                }
+                // The King may not be face up; drawing from the rest needs no redraw
+                int c = drawAndRemove(availableMask & ~CharacterMask.KING);
+                faceUpMask |= c;
+                events.characterDiscarded(CharacterMask.single(c));
             }
             return;
         }
         Player chooser = players.get(chooserIndex);
         if (chooser instanceof HumanPlayer) {
-            System.out.println("Available characters: " + listChars());
-            System.out.println("Choose your character.");
+            events.characterChoiceRequired(chooser, CharacterMask.list(availableMask));
             return;
         }
-        Character pick = availableChars.remove(new Random().nextInt(availableChars.size()));
-        assignments.put(chooser, pick);
-        System.out.printf("Player %d chose a character.%n", chooser.getId());
+        completePick(((AIPlayer) chooser).pickCharacter(this, CharacterMask.list(availableMask)));
+    }
+
+    /**
+     * The current chooser takes an available character.
+     * @param pick an available character
+     */
+    void completePick(Character pick) {
+        availableMask &= ~CharacterMask.bit(pick);
+        assign(chooserIndex, pick);
+        events.characterChosen(players.get(chooserIndex));
         advancePicker();
     }
 
@@ -179,95 +612,368 @@ public class Game implements Serializable {
      */
     public void chooseCharacter(String name) {
         if (phase != Phase.SELECTION) {
-            System.out.println("It is not your turn. Press t to continue.");
+            out().println("It is not your turn. Press t to continue.");
             return;
         }
-        Character c;
-        try {
-            c = Character.valueOf(name.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            System.out.println("Invalid. Pick one of: " + listChars());
+        Character c = Character.byName(name);
+        if (c == null) {
+            out().println("Invalid. Pick one of: " + listChars());
             return;
         }
-        if (!availableChars.remove(c)) {
-            System.out.println("That character is not available. Pick one of: " + listChars());
+        if ((availableMask & CharacterMask.bit(c)) == 0) {
+            out().println("That character is not available. Pick one of: " + listChars());
             return;
         }
-        assignments.put(getHuman(), c);
-        System.out.println("Player 1 chose a character.");
+        availableMask &= ~CharacterMask.bit(c);
+        assign(0, c);
+        events.characterChosen(getHuman());
         advancePicker();
+        actions.actionApplied(this, ActionLog.CHOOSE, c.ordinal());
+    }
+
+    /**
+     * Record that the player in {@code seat} holds character {@code c},
+     * replacing any earlier pick by that seat this round.
+     */
+    private void assign(int seat, Character c) {
+        Character old = seatCharacter[seat];
+        if (old == null) picks++;
+        else {
+            ownerSeat[old.ordinal()] = -1;
+            assignHash ^= Zobrist.key(Zobrist.CHARACTER, seat, old.ordinal());
+        }
+        seatCharacter[seat] = c;
+        ownerSeat[c.ordinal()] = seat;
+        assignHash ^= Zobrist.key(Zobrist.CHARACTER, seat, c.ordinal());
+    }
+
+    /** Forget every character pick, ready for a new selection phase. */
+    private void clearAssignments() {
+        Arrays.fill(ownerSeat, -1);
+        Arrays.fill(seatCharacter, null);
+        picks = 0;
+        assignHash = 0;
     }
 
     /** Advance chooserIndex and switch to TURN when all have picked. */
     private void advancePicker() {
         chooserIndex = (chooserIndex + 1) % players.size();
-        if (assignments.size() == players.size()) {
+        if (picks == players.size()) {
             phase = Phase.TURN;
             turnRankPointer = 1;
-            printPhaseHeader();
+            events.phaseStarted(phase);
         }
     }
 
+    /**
+     * Finish a turn step whose player acted outside processT(), e.g. a
+     * search rollout that played the current player's turn itself.
+     */
+    void finishTurnStep() {
+        turnRankPointer++;
+    }
+
+    /**
+     * Play to the end with processT(), for search rollouts.
+     * @param maxSteps give up after this many steps
+     * @return true if the game finished
+     */
+    boolean playOut(int maxSteps) {
+        for (int i = 0; i < maxSteps && !finished; i++) processT();
+        return finished;
+    }
+
+    /**
+     * Step the game until a human decision is needed or the game ends:
+     * the human is to pick a character, the human's turn has begun, or a
+     * prompt is pending. Takes no step if a decision is already needed,
+     * and gives up after {@link #MAX_STEPS} steps so a game that never
+     * ends cannot hang the caller.
+     * @param toEnd hand the human's seat to a default AI first, so the game
+     *        plays out to its end; a pending income card choice keeps card 1
+     * @return number of steps taken
+     */
+    public int fastForward(boolean toEnd) {
+        if (prompt == Prompt.PLAYER_COUNT) {
+            ask();
+            return 0;
+        }
+        if (toEnd) autoplayHuman();
+        int steps = 0;
+        while (!finished && !awaitingHuman() && steps < MAX_STEPS) {
+            processT();
+            steps++;
+        }
+        if (!finished && phase == Phase.SELECTION && prompt == Prompt.NONE) {
+            events.characterChoiceRequired(players.get(chooserIndex),
+                                           CharacterMask.list(availableMask));
+        }
+        return steps;
+    }
+
+    /**
+     * @return true if the game cannot go on without the human: a prompt is
+     *         pending, the human is to pick a character, or it is the
+     *         human's turn
+     */
+    public boolean awaitingHuman() {
+        if (prompt != Prompt.NONE) return true;
+        if (phase == Phase.SELECTION) {
+            return mysteryMask != 0 && players.get(chooserIndex) instanceof HumanPlayer;
+        }
+        // The rank just called is the human's, and they were not killed
+        return currentPlayer instanceof HumanPlayer && turnRankPointer >= 2
+            && turnRankPointer <= CHARACTERS.length + 1
+            && getCharacter(currentPlayer) == CHARACTERS[turnRankPointer - 2] && !turnLost();
+    }
+
+    /**
+     * Hand the human's seat to a default AI for the rest of the game,
+     * keeping its gold, hand, city and character.
+     */
+    void autoplayHuman() {
+        HumanPlayer h = getHuman();
+        if (h == null) return;
+        if (prompt == Prompt.CARD_CHOICE) {
+            prompt = Prompt.NONE;
+            keepIncomeCard(1);
+        }
+        AIPlayer ai = (AIPlayer) new AIPlayer(h.getId()).copyStateFrom(h);
+        players.set(0, ai);
+        if (currentPlayer == h) currentPlayer = ai;
+        actions.actionApplied(this, ActionLog.AUTOPLAY, 0);
+    }
+
     /** Handle one turn-phase action: players take income/build in rank order. */
     private void doTurnStep() {
-        if (turnRankPointer > Character.values().length) {
+        if (turnRankPointer > CHARACTERS.length) {
             if (endTriggered) {
-                scoreAndExit();
+                finishGame();
                 return;
             }
             phase = Phase.SELECTION;
-            mysteryDiscard = null;
-            faceUpDiscards.clear();
-            assignments.clear();
-            availableChars.clear();
-            Collections.addAll(availableChars, Character.values());
-            printPhaseHeader();
+            mysteryMask = 0;
+            faceUpMask  = 0;
+            killedMask  = 0;
+            robbedMask  = 0;
+            clearAssignments();
+            availableMask = CharacterMask.ALL;
+            events.phaseStarted(phase);
             return;
         }
-        incomeTaken   = false;
-        builtThisTurn = false;
-        Character curr = Character.values()[turnRankPointer - 1];
-        System.out.printf("%d: %s  ", turnRankPointer, curr.name());
-        Player owner = assignments.entrySet().stream()
-            .filter(e -> e.getValue() == curr)
-            .map(Map.Entry::getKey)
-            .findFirst()
-            .orElse(null);
+        incomeTaken    = false;
+        buildsThisTurn = 0;
+        abilityUsed    = false;
+        Character curr = CHARACTERS[turnRankPointer - 1];
+        Player owner = getOwner(curr);
         currentPlayer = owner;
-        if (owner == null) {
-            System.out.println("No one is the " + curr.name());
-        } else if (owner instanceof HumanPlayer) {
-            System.out.println("Your turn.");
-            System.out.println("Choose income: 'income gold' or 'income cards'");
-        } else {
-            System.out.printf("Player %d is the %s%n", owner.getId(), curr.name());
+        // A killed King still takes the crown
+        if (curr == Character.KING && owner != null) passCrown();
+        if (owner != null && (killedMask & CharacterMask.bit(curr)) != 0) {
+            events.turnLost(turnRankPointer, curr, owner);
+            turnRankPointer++;
+            return;
+        }
+        events.turnStarted(turnRankPointer, curr, owner);
+        if (owner != null) startTurn(owner, curr);
+        if (owner != null && !(owner instanceof HumanPlayer)) {
             if (debugMode) {
-                System.out.println("DEBUG: AI hand: " + owner.getHandCards());
+                out().println("DEBUG: AI hand: " + owner.getHandCards());
             }
             ((AIPlayer) owner).takeTurn(this);
         }
         turnRankPointer++;
     }
 
-    /** Remove and return a random character from availableChars. */
-    private Character drawAndRemove() {
-        return availableChars.remove(new Random().nextInt(availableChars.size()));
+    // ─── Abilities ───────────────────────────────────────────────────────────
+
+    /** The King's owner picks first next round. */
+    private void passCrown() {
+        chooserIndex = ownerSeat[Character.KING.ordinal()];
+        events.crownPassed(players.get(chooserIndex));
+    }
+
+    /**
+     * Apply the passive effects of a character whose turn begins: the
+     * Thief's robbery, then gold per district of the character's color and
+     * any bonus gold and cards (see {@link Abilities}).
+     */
+    private void startTurn(Player p, Character c) {
+        if ((robbedMask & CharacterMask.bit(c)) != 0) {
+            Player thief = getOwner(Character.THIEF);
+            int stolen = p.gold;
+            if (thief != null && thief != p && stolen > 0) {
+                p.gold = 0;
+                thief.gold += stolen;
+                events.goldStolen(thief, p, stolen);
+            }
+        }
+        Color color = Abilities.incomeColor(c);
+        int income = (color == null ? 0 : p.countBuilt(color)) + Abilities.bonusGold(c);
+        if (income > 0) {
+            p.gold += income;
+            events.characterIncome(p, c, income, p.gold);
+        }
+        int drawn = 0;
+        for (int n = Abilities.bonusCards(c); drawn < n; drawn++) {
+            DistrictCard d = districtDeck.draw();
+            if (d == null) break;
+            p.hand.add(d);
+        }
+        if (drawn > 0) events.cardsDrawn(p, drawn);
+    }
+
+    /**
+     * The Assassin kills a character, who loses their turn this round.
+     * @param assassin the player holding the Assassin
+     * @param target any character but the Assassin
+     * @return false if the target is not allowed
+     */
+    boolean kill(Player assassin, Character target) {
+        if (target == Character.ASSASSIN) return false;
+        killedMask = CharacterMask.bit(target);
+        abilityUsed = true;
+        events.characterKilled(target);
+        return true;
+    }
+
+    /**
+     * The Thief robs a character, taking their gold when their turn begins.
+     * @param thief the player holding the Thief
+     * @param target a character other than the Assassin, the Thief and
+     *        the killed character
+     * @return false if the target is not allowed
+     */
+    boolean rob(Player thief, Character target) {
+        int bit = CharacterMask.bit(target);
+        if (((Abilities.UNROBBABLE | killedMask) & bit) != 0) return false;
+        robbedMask = bit;
+        abilityUsed = true;
+        events.characterRobbed(target);
+        return true;
+    }
+
+    /**
+     * The Magician exchanges hands with another player.
+     * @param magician the player holding the Magician
+     * @param other any other player
+     * @return false if other is the Magician
+     */
+    boolean swapHands(Player magician, Player other) {
+        if (other == magician) return false;
+        ((CardList) magician.hand).swapContents((CardList) other.hand);
+        abilityUsed = true;
+        events.handsSwapped(magician, other);
+        return true;
+    }
+
+    /**
+     * The Magician discards cards from hand and draws as many.
+     * @param magician the player holding the Magician
+     * @param mask bit i set to discard hand index i (0-based)
+     * @return false if the mask selects no card in hand
+     */
+    boolean redraw(Player magician, int mask) {
+        List<DistrictCard> hand = magician.hand;
+        int n = 0;
+        for (int i = Math.min(hand.size(), Integer.SIZE) - 1; i >= 0; i--) {
+            if ((mask & 1 << i) == 0) continue;
+            districtDeck.discard(hand.remove(i));
+            n++;
+        }
+        if (n == 0) return false;
+        int drawn = 0;
+        for (; drawn < n; drawn++) {
+            DistrictCard d = districtDeck.draw();
+            if (d == null) break;
+            hand.add(d);
+        }
+        abilityUsed = true;
+        events.cardsDrawn(magician, drawn);
+        return true;
+    }
+
+    /**
+     * Why the Warlord may not destroy a district, or null if they may.
+     * @param warlord the player holding the Warlord
+     * @param victim owner of the district
+     * @param index position in the victim's city
+     */
+    private String destroyRefusal(Player warlord, Player victim, int index) {
+        if (index < 0 || index >= victim.getCitySize()) return "Invalid district number.";
+        if (victim.getCitySize() >= 8) return "A completed city cannot be attacked.";
+        Character c = getCharacter(victim);
+        if (c != null && (Abilities.PROTECTED & ~killedMask & CharacterMask.bit(c)) != 0) {
+            return "The " + c.name() + "'s districts are protected.";
+        }
+        if (victim.getBuiltDistricts().get(index).getCost() - 1 > warlord.gold) {
+            return "You cannot afford to destroy that district.";
+        }
+        return null;
+    }
+
+    /**
+     * The Warlord destroys a district, paying one gold less than its cost.
+     * Completed cities and the living Bishop's districts are immune.
+     * @param warlord the player holding the Warlord
+     * @param victim owner of the district
+     * @param index position in the victim's city (0-based)
+     * @return false if the district may not be destroyed
+     */
+    boolean destroy(Player warlord, Player victim, int index) {
+        if (destroyRefusal(warlord, victim, index) != null) return false;
+        DistrictCard card = victim.removeFromCity(index);
+        warlord.gold -= card.getCost() - 1;
+        districtDeck.discard(card);
+        abilityUsed = true;
+        events.districtDestroyed(warlord, victim, card);
+        return true;
+    }
+
+    /** @return the character killed this round, as a {@link CharacterMask} */
+    int killedMask() {
+        return killedMask;
+    }
+
+    /** @return the characters discarded face up this round, as a {@link CharacterMask} */
+    int faceUpMask() {
+        return faceUpMask;
+    }
+
+    /** @return true if the current player's character was killed */
+    private boolean turnLost() {
+        Character c = currentPlayer == null ? null : getCharacter(currentPlayer);
+        return c != null && (killedMask & CharacterMask.bit(c)) != 0;
+    }
+
+    /**
+     * Remove a random character from the available ones.
+     * @param from non-empty subset of availableMask to draw from
+     * @return the drawn character, as a one-bit mask
+     */
+    private int drawAndRemove(int from) {
+        int c = CharacterMask.pick(from, rng.nextInt(Integer.bitCount(from)));
+        availableMask &= ~c;
+        return c;
     }
 
     /** Build a comma-separated list of available character names. */
     private String listChars() {
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < availableChars.size(); i++) {
-            if (i > 0) sb.append(", ");
-            sb.append(availableChars.get(i).name());
+        for (Character c : CharacterMask.list(availableMask)) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(c.name());
         }
         return sb.toString();
     }
 
     // ─── Exposed Methods ─────────────────────────────────────────────────────
 
-    /** @return the human player (players.get(0)) */
-    public HumanPlayer getHuman()            { return (HumanPlayer) players.get(0); }
+    /** @return the human player (players.get(0)), or null if seat 1 is an AI */
+    public HumanPlayer getHuman() {
+        Player p = players.get(0);
+        return p instanceof HumanPlayer ? (HumanPlayer) p : null;
+    }
 
     /** @return current phase (SELECTION or TURN) */
     public Phase getPhase()                 { return phase;               }
@@ -275,86 +981,294 @@ public class Game implements Serializable {
     /** @return player whose turn it is now */
     public Player getCurrentPlayer()        { return currentPlayer;       }
 
+    /**
+     * @param c a character
+     * @return the player holding it this round, or null
+     */
+    public Player getOwner(Character c) {
+        int seat = ownerSeat[c.ordinal()];
+        return seat < 0 ? null : players.get(seat);
+    }
+
+    /**
+     * @param p a player in this game
+     * @return the character they picked this round, or null
+     */
+    public Character getCharacter(Player p) {
+        return seatCharacter[p.getId() - 1];
+    }
+
     /** @return the shared district deck */
     public DistrictDeck getDeck()           { return districtDeck;        }
 
+    /** @return the listener receiving this game's events */
+    public GameEventListener getEventListener() { return events;          }
+
+    /** @return this game's random source; confine to the game's thread */
+    public SplitMix64 getRandom()           { return rng;                 }
+
+    /**
+     * 64-bit Zobrist hash of the position: phase, rank pointer, chooser
+     * (crown holder), character assignments, kill and robbery targets and
+     * every player's gold, hand
+     * and city. Each part is kept up to date as it changes, so this costs
+     * one XOR per player. Equal positions always hash equal; the deck,
+     * discards and draft pool are not included.
+     * @return the hash
+     */
+    public long hash() {
+        long h = assignHash
+               ^ Zobrist.key(Zobrist.PHASE, phase.ordinal(), 0)
+               ^ Zobrist.key(Zobrist.RANK, turnRankPointer, 0)
+               ^ Zobrist.key(Zobrist.CHOOSER, chooserIndex, 0);
+        if ((killedMask | robbedMask) != 0) h ^= Zobrist.key(Zobrist.ABILITY, killedMask, robbedMask);
+        for (Player p : players) h ^= p.hash();
+        return h;
+    }
+
+    /**
+     * Send future events to a different listener, e.g. once a restored game
+     * has silently replayed its log.
+     * @param events the new listener
+     */
+    void setEventListener(GameEventListener events) {
+        this.events = events;
+    }
+
+    /**
+     * Report every future state-changing action to a log.
+     * @param log the log, or {@link ActionLog#NONE}
+     */
+    public void setActionLog(ActionLog log) {
+        this.actions = log;
+    }
+
+    /** @return the log receiving this game's actions */
+    ActionLog getActionLog() {
+        return actions;
+    }
+
     /** @return true if income has been taken this turn */
     public boolean isIncomeTaken()          { return incomeTaken;         }
 
     /** @return true if a build was performed this turn */
-    public boolean hasBuiltThisTurn()       { return builtThisTurn;       }
+    public boolean hasBuiltThisTurn()       { return buildsThisTurn > 0;  }
+
+    /** @return true once the game has reached end-of-game scoring */
+    public boolean isFinished()             { return finished;            }
+
+    /** @return final scores, or null until the game is finished */
+    public GameResult getResult()           { return result;              }
+
+    /** @return all players in seat order */
+    public List<Player> getPlayers()        { return Collections.unmodifiableList(players); }
 
     /**
      * Human takes 2 gold as income. Must be human’s turn and not yet taken.
      * Prints error if invalid.
      */
     public void humanTakeGoldIncome() {
-        if (!(currentPlayer instanceof HumanPlayer) || incomeTaken) {
-            System.out.println("Cannot take income now.");
+        if (!(currentPlayer instanceof HumanPlayer) || incomeTaken || turnLost()
+            || prompt != Prompt.NONE) {
+            out().println("Cannot take income now.");
             return;
         }
         getHuman().addGold(2);
-        System.out.println("You chose gold and gained 2 (total=" + getHuman().getGold() + ").");
+        events.goldTaken(getHuman(), 2, getHuman().getGold());
         incomeTaken = true;
+        actions.actionApplied(this, ActionLog.INCOME_GOLD, 0);
     }
 
     /**
-     * Human draws two cards as income, chooses one to keep.
-     * Prints error if not allowed.
+     * Human draws two cards as income, chooses one to keep and discards the
+     * other. The choice is a {@link Prompt#CARD_CHOICE} prompt. Prints error
+     * if not allowed or if the deck is exhausted.
      */
     public void humanDrawIncome() {
-        if (!(currentPlayer instanceof HumanPlayer) || incomeTaken) {
-            System.out.println("Cannot take income now.");
+        drawIncome(0);
+    }
+
+    /**
+     * Draw two income cards and keep one.
+     * @param pick 1 or 2 to keep that card, or 0 to ask the player
+     */
+    private void drawIncome(int pick) {
+        if (!(currentPlayer instanceof HumanPlayer) || incomeTaken || turnLost()
+            || prompt != Prompt.NONE) {
+            out().println("Cannot take income now.");
+            return;
+        }
+        if (districtDeck.isEmpty()) {
+            out().println("The deck is empty. Take gold instead.");
             return;
         }
+        choice1 = districtDeck.draw();
+        choice2 = districtDeck.draw();
+        if (choice2 == null) {
+            keepIncomeCard(1);
+        } else if (pick != 0) {
+            keepIncomeCard(pick);
+        } else {
+            out().println("Drawn: 1) " + choice1.display() + "   2) " + choice2.display());
+            raise(Prompt.CARD_CHOICE);
+        }
+    }
+
+    /** Keep drawn income card 1 or 2 and discard the other. */
+    private void keepIncomeCard(int pick) {
         HumanPlayer me = getHuman();
-        DistrictCard c1 = districtDeck.draw();
-        DistrictCard c2 = districtDeck.draw();
-        System.out.println("Drawn: 1) " + c1.display() + "   2) " + c2.display());
-        Scanner sc = new Scanner(System.in);
-        int pick;
-        do {
-            System.out.print("Pick 1 or 2: ");
-            try { pick = Integer.parseInt(sc.nextLine().trim()); }
-            catch (Exception e) { pick = -1; }
-        } while (pick != 1 && pick != 2);
-        DistrictCard keep = (pick == 1 ? c1 : c2);
+        DistrictCard keep = pick == 1 ? choice1 : choice2;
+        if (choice2 != null) districtDeck.discard(pick == 1 ? choice2 : choice1);
+        choice1 = choice2 = null;
         me.getHandCards().add(keep);
-        System.out.println("You kept: " + keep.display());
+        events.cardKept(me, keep);
         incomeTaken = true;
+        actions.actionApplied(this, ActionLog.INCOME_CARDS, pick);
     }
 
     /**
      * Human builds a district at the given hand index.
-     * Must be human’s turn, income taken, and not yet built this turn.
+     * Must be human’s turn, income taken, and the character's build limit
+     * (3 for the Architect, otherwise 1) not yet reached this turn.
      * Prints error if invalid.
      * @param idx 1-based hand index
      */
     public void humanBuild(int idx) {
-        if (!(currentPlayer instanceof HumanPlayer)) {
-            System.out.println("It is not your turn.");
+        if (!(currentPlayer instanceof HumanPlayer) || turnLost()) {
+            out().println("It is not your turn.");
             return;
         }
         if (!incomeTaken) {
-            System.out.println("You must take income first.");
+            out().println("You must take income first.");
             return;
         }
-        if (builtThisTurn) {
-            System.out.println("You have already built this turn.");
+        int limit = Abilities.buildLimit(getCharacter(currentPlayer));
+        if (buildsThisTurn >= limit) {
+            out().println(limit == 1 ? "You have already built this turn."
+                                          : "You have already built " + limit + " districts this turn.");
             return;
         }
-        getHuman().buildFromHand(idx, districtDeck);
-        builtThisTurn = true;
+        DistrictCard built = getHuman().tryBuild(idx, out());
+        if (built == null) return;     // refused: the attempt costs no build
+        events.districtBuilt(getHuman(), built);
+        buildsThisTurn++;
         checkEndTrigger(getHuman());
+        actions.actionApplied(this, ActionLog.BUILD, idx);
+    }
+
+    /**
+     * Check that the human may use an active ability now, printing why not.
+     * @param action the Abilities code the command needs
+     */
+    private boolean humanMayUse(int action) {
+        if (!(currentPlayer instanceof HumanPlayer) || turnLost()) {
+            out().println("It is not your turn.");
+            return false;
+        }
+        Character c = getCharacter(currentPlayer);
+        if (c == null || Abilities.action(c) != action) {
+            out().println("Your character cannot do that.");
+            return false;
+        }
+        if (abilityUsed) {
+            out().println("You have already used your ability this turn.");
+            return false;
+        }
+        return true;
+    }
+
+    /** Print the human's character ability and how to use it. */
+    public void showAction() {
+        Character c = currentPlayer instanceof HumanPlayer ? getCharacter(currentPlayer) : null;
+        if (c == null) {
+            out().println("It is not your turn.");
+            return;
+        }
+        out().println(Abilities.describe(c));
+        String usage = Abilities.usage(c);
+        out().println(usage == null ? "Its effects are applied automatically." : "Usage: " + usage);
+    }
+
+    /**
+     * Human, as Assassin, kills a character. Prints error if invalid.
+     * @param target the character to kill
+     */
+    public void humanKill(Character target) {
+        if (!humanMayUse(Abilities.KILL)) return;
+        if (!kill(currentPlayer, target)) {
+            out().println("You cannot kill yourself.");
+            return;
+        }
+        actions.actionApplied(this, ActionLog.KILL, target.ordinal());
+    }
+
+    /**
+     * Human, as Thief, robs a character. Prints error if invalid.
+     * @param target the character to rob
+     */
+    public void humanRob(Character target) {
+        if (!humanMayUse(Abilities.ROB)) return;
+        if (!rob(currentPlayer, target)) {
+            out().println("You cannot rob the Assassin, the Thief or the killed character.");
+            return;
+        }
+        actions.actionApplied(this, ActionLog.ROB, target.ordinal());
+    }
+
+    /**
+     * Human, as Magician, swaps hands with another player. Prints error if invalid.
+     * @param pid player number 2…n
+     */
+    public void humanSwap(int pid) {
+        if (!humanMayUse(Abilities.MAGIC)) return;
+        if (pid < 1 || pid > players.size() || !swapHands(currentPlayer, players.get(pid - 1))) {
+            out().println("Choose another player, 2–" + players.size() + ".");
+            return;
+        }
+        actions.actionApplied(this, ActionLog.SWAP, pid);
+    }
+
+    /**
+     * Human, as Magician, discards cards and draws as many. Prints error if invalid.
+     * @param mask bit i set to discard hand index i (0-based)
+     */
+    public void humanRedraw(int mask) {
+        if (!humanMayUse(Abilities.MAGIC)) return;
+        if (!redraw(currentPlayer, mask)) {
+            out().println("Choose at least one card from your hand.");
+            return;
+        }
+        actions.actionApplied(this, ActionLog.REDRAW, mask);
+    }
+
+    /**
+     * Human, as Warlord, destroys a district. Prints error if invalid.
+     * @param pid owner's player number
+     * @param idx 1-based position in their city
+     */
+    public void humanDestroy(int pid, int idx) {
+        if (!humanMayUse(Abilities.DESTROY)) return;
+        if (pid < 1 || pid > players.size()) {
+            out().println("Invalid player number. Must be 1–" + players.size() + ".");
+            return;
+        }
+        Player victim = players.get(pid - 1);
+        String refusal = destroyRefusal(currentPlayer, victim, idx - 1);
+        if (refusal != null) {
+            out().println(refusal);
+            return;
+        }
+        destroy(currentPlayer, victim, idx - 1);
+        actions.actionApplied(this, ActionLog.DESTROY, pid << 8 | idx);
     }
 
     /** Print the human player’s hand and gold. */
     public void showHand() {
         HumanPlayer me = getHuman();
-        System.out.printf("You have %d gold. Cards in hand:%n", me.getGold());
+        out().printf("You have %d gold. Cards in hand:%n", me.getGold());
         int i = 1;
         for (DistrictCard d : me.getHandCards()) {
-            System.out.printf("  %d. %s (%s), cost: %d%n",
+            out().printf("  %d. %s (%s), cost: %d%n",
                 i++, d.getName(), d.getColor().name().toLowerCase(), d.getCost());
         }
     }
@@ -365,17 +1279,17 @@ public class Game implements Serializable {
      */
     public void showCity(int pid) {
         if (pid < 1 || pid > players.size()) {
-            System.out.println("Invalid player number. Must be 1–" + players.size() + ".");
+            out().println("Invalid player number. Must be 1–" + players.size() + ".");
             return;
         }
         Player p = players.get(pid - 1);
-        System.out.println("Player " + p.getId() + " city:");
+        out().println("Player " + p.getId() + " city:");
         List<DistrictCard> city = p.getBuiltDistricts();
         if (city.isEmpty()) {
-            System.out.println("  (no districts built)");
+            out().println("  (no districts built)");
         } else {
             for (DistrictCard d : city) {
-                System.out.println("  " + d.display());
+                out().println("  " + d.display());
             }
         }
     }
@@ -383,7 +1297,7 @@ public class Game implements Serializable {
     /** Show summary (hand size, gold, city size) for all players. */
     public void showAll() {
         for (Player p : players) {
-            System.out.printf(
+            out().printf(
                 "Player %d: hand=%d cards, gold=%d, city=%d districts%n",
                 p.getId(), p.getHandSize(), p.getGold(), p.getCitySize()
             );
@@ -391,11 +1305,33 @@ public class Game implements Serializable {
     }
 
     /**
-     * Save game state (phase, turn pointer, players’ hands/cities) to JSON file.
+     * Save the game to a file: a binary snapshot of the complete state, or
+     * a JSON export if the name ends in ".json".
+     * @param filename output path
+     */
+    public void save(String filename) {
+        if (filename.toLowerCase(Locale.ROOT).endsWith(".json")) {
+            exportJson(filename);
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filename)))) {
+            writeSnapshot(out);
+            out.flush();
+            out().println("Game saved to " + filename);
+        } catch (IOException e) {
+            out().println("Save failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Export game state (phase, turn pointer, players’ hands/cities) to a
+     * JSON file. The export is readable by other tools but, unlike a binary
+     * snapshot, does not record the deck, the draft or turn progress.
      * @param filename output JSON path
      */
     @SuppressWarnings("unchecked")
-    public void save(String filename) {
+    public void exportJson(String filename) {
         JSONObject root = new JSONObject();
         root.put("phase", phase.name());
         root.put("turnRankPointer", turnRankPointer);
@@ -418,128 +1354,330 @@ public class Game implements Serializable {
 
         try (FileWriter fw = new FileWriter(filename)) {
             fw.write(root.toJSONString());
-            System.out.println("Game saved to " + filename);
+            out().println("Game saved to " + filename);
         } catch (IOException e) {
-            System.out.println("Save failed: " + e.getMessage());
+            out().println("Save failed: " + e.getMessage());
         }
     }
 
     /**
-     * Load game state from JSON file. Overwrites current fields (except deck).
-     * @param filename input JSON path
+     * Load game state from a binary snapshot or a JSON export, recognised
+     * by the snapshot's magic number. A JSON export overwrites the phase,
+     * turn pointer and players only; hand and city card names are resolved
+     * through the card catalog.
+     * @param filename input path
      */
     public void load(String filename) {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(filename)))) {
+            in.mark(4);
+            boolean binary;
+            try { binary = in.readInt() == SNAPSHOT_MAGIC; }
+            catch (EOFException e) { binary = false; }
+            in.reset();
+            if (binary) readSnapshot(in);
+            else importJson(new InputStreamReader(in, "UTF-8"));
+            out().println("Game loaded from " + filename);
+            events.phaseStarted(phase);
+            actions.actionApplied(this, ActionLog.RESTORED, 0);
+        } catch (Exception e) {
+            out().println("Load failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read a JSON export written by {@link #exportJson}.
+     * @param reader JSON source
+     * @throws Exception if the JSON is malformed or incomplete
+     */
+    private void importJson(Reader reader) throws Exception {
         JSONParser parser = new JSONParser();
-        try (FileReader fr = new FileReader(filename)) {
-            JSONObject root = (JSONObject) parser.parse(fr);
-
-            phase            = Phase.valueOf((String) root.get("phase"));
-            turnRankPointer  = ((Long)   root.get("turnRankPointer")).intValue();
-            chooserIndex     = ((Long)   root.get("chooserIndex")).intValue();
-
-            JSONArray jsPlayers = (JSONArray) root.get("players");
-            players.clear();
-            for (Object o : jsPlayers) {
-                JSONObject jp = (JSONObject) o;
-                int id   = ((Long) jp.get("id")).intValue();
-                int gold = ((Long) jp.get("gold")).intValue();
-                Player p = (id == 1)
-                    ? new HumanPlayer(1)
-                    : new AIPlayer(id);
-                p.gold = gold;
-                players.add(p);
+        JSONObject root = (JSONObject) parser.parse(reader);
+
+        phase            = Phase.valueOf((String) root.get("phase"));
+        turnRankPointer  = ((Long)   root.get("turnRankPointer")).intValue();
+        chooserIndex     = ((Long)   root.get("chooserIndex")).intValue();
+
+        JSONArray jsPlayers = (JSONArray) root.get("players");
+        players.clear();
+        for (Object o : jsPlayers) {
+            JSONObject jp = (JSONObject) o;
+            int id   = ((Long) jp.get("id")).intValue();
+            int gold = ((Long) jp.get("gold")).intValue();
+            Player p = (id == 1)
+                ? new HumanPlayer(1)
+                : new AIPlayer(id);
+            p.gold = gold;
+            CardCatalog catalog = districtDeck.getCatalog();
+            JSONArray hand = (JSONArray) jp.get("hand");
+            if (hand != null) {
+                for (Object n : hand) {
+                    DistrictCard d = catalog.byName((String) n);
+                    if (d != null) p.hand.add(d);
+                }
             }
+            JSONArray city = (JSONArray) jp.get("city");
+            if (city != null) {
+                for (Object n : city) {
+                    DistrictCard d = catalog.byName((String) n);
+                    if (d != null && !p.hasBuilt(d)) p.addToCity(d);
+                }
+            }
+            players.add(p);
+        }
+    }
 
-            System.out.println("Game loaded from " + filename);
-            printPhaseHeader();
-        } catch (Exception e) {
-            System.out.println("Load failed: " + e.getMessage());
+    /**
+     * Write the complete game state as a compact binary snapshot: players'
+     * gold, hands and cities, both deck piles in order, the draft (available,
+     * discarded and assigned characters), turn progress and the random
+     * generator's state. Cards are written as catalog ids. Writing a
+     * snapshot changes nothing in this game, so the restored game and this
+     * one draw the same numbers from here on.
+     * @param out destination; buffered output is not flushed
+     * @throws IOException if the destination fails
+     */
+    public void writeSnapshot(DataOutput out) throws IOException {
+        CardCatalog catalog = districtDeck.getCatalog();
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeShort(SNAPSHOT_VERSION);
+        out.writeShort(catalog.size());
+        out.writeLong(rng.getState());
+        out.writeByte(players.size());
+        for (Player p : players) {
+            out.writeByte(p instanceof HumanPlayer ? HUMAN_SEAT
+                        : p instanceof MctsPlayer ? MCTS_SEAT : AI_SEAT);
+            out.writeByte(p.getId());
+            p.writeState(out, catalog);
         }
+        out.writeByte(phase.ordinal());
+        writeCharacters(out, availableMask);
+        writeCharacters(out, faceUpMask);
+        writeCharacter(out, CharacterMask.single(mysteryMask));
+        for (int s = 0; s < players.size(); s++) writeCharacter(out, seatCharacter[s]);
+        out.writeByte(chooserIndex);
+        out.writeByte(turnRankPointer);
+        out.writeByte(currentPlayer == null ? -1 : players.indexOf(currentPlayer));
+        out.writeByte(completions);
+        out.writeBoolean(incomeTaken);
+        out.writeByte(buildsThisTurn);
+        out.writeBoolean(endTriggered);
+        out.writeBoolean(finished);
+        out.writeBoolean(debugMode);
+        out.writeByte(killedMask);
+        out.writeByte(robbedMask);
+        out.writeBoolean(abilityUsed);
+        districtDeck.writeState(out);
+    }
+
+    /**
+     * Replace this game's state with a snapshot written by
+     * {@link #writeSnapshot}. The event listener is kept. Nothing is changed
+     * if the snapshot is invalid or the source fails part way.
+     * @param in snapshot source
+     * @throws IOException if the source fails or is not a valid snapshot
+     */
+    public void readSnapshot(DataInput in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC) throw new IOException("Not a Citadels snapshot");
+        int version = in.readUnsignedShort();
+        if (version != SNAPSHOT_VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        CardCatalog catalog = districtDeck.getCatalog();
+        if (in.readUnsignedShort() != catalog.size()) {
+            throw new IOException("Snapshot uses a different card catalog");
+        }
+        long state = in.readLong();
+        int n = in.readUnsignedByte();
+        if (n < GameConfig.MIN_PLAYERS || n > GameConfig.MAX_PLAYERS) {
+            throw new IOException("Corrupt snapshot: " + n + " players");
+        }
+        List<Player> seats = new ArrayList<>(n);
+        for (int s = 0; s < n; s++) {
+            int type = in.readUnsignedByte();
+            int id   = in.readUnsignedByte();
+            Player p = type == HUMAN_SEAT ? new HumanPlayer(id)
+                     : type == MCTS_SEAT  ? new MctsPlayer(id) : new AIPlayer(id);
+            p.readState(in, catalog);
+            seats.add(p);
+        }
+        int ph = in.readUnsignedByte();
+        if (ph >= Phase.values().length) throw new IOException("Corrupt snapshot: phase " + ph);
+        int avail  = readCharacters(in);
+        int faceUp = readCharacters(in);
+        Character mystery = readCharacter(in);
+        Character[] picked = new Character[n];
+        for (int s = 0; s < n; s++) picked[s] = readCharacter(in);
+        int chooser = in.readUnsignedByte();
+        int rank    = in.readUnsignedByte();
+        int current = in.readByte();
+        int done    = in.readUnsignedByte();
+        boolean income = in.readBoolean();
+        int built = in.readUnsignedByte();
+        boolean ending = in.readBoolean(), over = in.readBoolean(), debug = in.readBoolean();
+        int killed = in.readUnsignedByte(), robbed = in.readUnsignedByte();
+        boolean used = in.readBoolean();
+        if (chooser >= n || current >= n) throw new IOException("Corrupt snapshot: seat out of range");
+        districtDeck.readState(in);
+
+        players.clear();
+        players.addAll(seats);
+        phase = Phase.values()[ph];
+        availableMask = avail;
+        faceUpMask    = faceUp;
+        mysteryMask   = mystery == null ? 0 : CharacterMask.bit(mystery);
+        clearAssignments();
+        for (int s = 0; s < n; s++) if (picked[s] != null) assign(s, picked[s]);
+        chooserIndex    = chooser;
+        turnRankPointer = rank;
+        currentPlayer   = current < 0 ? null : players.get(current);
+        completions     = done;
+        incomeTaken     = income;
+        buildsThisTurn  = built;
+        abilityUsed     = used;
+        killedMask      = killed;
+        robbedMask      = robbed;
+        endTriggered    = ending;
+        finished        = over;
+        debugMode       = debug;
+        result          = over ? score() : null;
+        rng.setState(state);
+    }
+
+    private static void writeCharacter(DataOutput out, Character c) throws IOException {
+        out.writeByte(c == null ? -1 : c.ordinal());
+    }
+
+    private static Character readCharacter(DataInput in) throws IOException {
+        int o = in.readByte();
+        if (o < -1 || o >= CHARACTERS.length) throw new IOException("Corrupt snapshot: character " + o);
+        return o < 0 ? null : CHARACTERS[o];
+    }
+
+    private static void writeCharacters(DataOutput out, int mask) throws IOException {
+        List<Character> cs = CharacterMask.list(mask);
+        out.writeByte(cs.size());
+        for (Character c : cs) out.writeByte(c.ordinal());
+    }
+
+    /** @return the characters read, as a {@link CharacterMask} */
+    private static int readCharacters(DataInput in) throws IOException {
+        int n = in.readUnsignedByte();
+        int mask = 0;
+        for (int i = 0; i < n; i++) {
+            Character c = readCharacter(in);
+            if (c == null) throw new IOException("Corrupt snapshot: missing character");
+            mask |= CharacterMask.bit(c);
+        }
+        return mask;
     }
 
     /** Toggle debug mode on/off. */
     public void toggleDebug() {
         debugMode = !debugMode;
-        System.out.println("Debug mode " + (debugMode ? "ON" : "OFF"));
+        out().println("Debug mode " + (debugMode ? "ON" : "OFF"));
     }
 
     /** Print the list of available commands. */
     public void showHelp() {
-        System.out.println("Available commands:");
-        System.out.println("  t                     : process turns");
-        System.out.println("  hand                  : show your hand and gold");
-        System.out.println("  gold                  : show your gold");
-        System.out.println("  income gold|cards     : choose income");
-        System.out.println("  build <hand-index>    : build a district");
-        System.out.println("  end                   : end your turn");
-        System.out.println("  citadel [p]           : show player p’s city");
-        System.out.println("  list [p]              : alias for citadel");
-        System.out.println("  city [p]              : alias for citadel");
-        System.out.println("  all                   : show all players info");
-        System.out.println("  save <file>           : save game state to JSON file");
-        System.out.println("  load <file>           : load game state from JSON file");
-        System.out.println("  debug                 : toggle debug mode");
-        System.out.println("  help                  : show this message");
-    }
-
-    /**
-     * Check if player has built ≥8 districts to trigger end-game.
+        out().println("Available commands:");
+        out().println("  t                     : process turns");
+        out().println("  hand                  : show your hand and gold");
+        out().println("  gold                  : show your gold");
+        out().println("  income gold|cards     : choose income");
+        out().println("  build <hand-index>    : build a district");
+        out().println("  action [args]         : describe or use your character's ability");
+        out().println("  end                   : end your turn");
+        out().println("  ff | run [end]        : play on until you are needed (or to the end, AI playing for you)");
+        out().println("  citadel [p]           : show player p’s city");
+        out().println("  list [p]              : alias for citadel");
+        out().println("  city [p]              : alias for citadel");
+        out().println("  all                   : show all players info");
+        out().println("  score                 : show current standings");
+        out().println("  save <file>           : save game state (JSON if <file> ends in .json)");
+        out().println("  load <file>           : load a saved game or JSON export");
+        out().println("  replay <file> [e]     : show a journaled game as of event e");
+        out().println("  debug                 : toggle debug mode");
+        out().println("  help                  : show this message");
+    }
+
+    /**
+     * Check if player has built ≥8 districts to trigger end-game, and record
+     * the order in which players complete their cities.
      * @param p player to check
      */
     public void checkEndTrigger(Player p) {
-        if (!endTriggered && p.getCitySize() >= 8) {
-            endTriggered    = true;
-            firstCompleter  = p.getId();
-            System.out.printf(">>> Player %d has completed 8 districts first!%n", p.getId());
+        if (p.completionOrder == 0 && p.getCitySize() >= 8) {
+            p.completionOrder = ++completions;
+            if (!endTriggered) {
+                endTriggered = true;
+                events.endTriggered(p);
+            }
         }
     }
 
-    /** Score all players and exit via System.exit(). */
-    private void scoreAndExit() {
-        System.out.println("\n=== GAME OVER: Scoring ===");
-        class Score {
-            Player p;
-            int base, diversity, bonusFirst, bonusOther, extra;
-            int total() { return base + diversity + bonusFirst + bonusOther + extra; }
-        }
-        List<Score> scores = new ArrayList<>();
+    /**
+     * Current score of one player, from the running totals kept on every
+     * build. O(1) and allocation-free, so it can be polled every turn.
+     * @param p a player in this game
+     * @return points the player would score if the game ended now
+     */
+    public int liveScore(Player p) {
+        return p.getCityValue() + diversityBonus(p) + firstCompleteBonus(p) + otherCompleteBonus(p);
+    }
+
+    private static int diversityBonus(Player p) {
+        return p.getColorMask() == Player.ALL_COLORS ? DIVERSITY_BONUS : 0;
+    }
+
+    private static int firstCompleteBonus(Player p) {
+        return p.getCompletionOrder() == 1 ? FIRST_COMPLETE_BONUS : 0;
+    }
+
+    private static int otherCompleteBonus(Player p) {
+        return p.getCompletionOrder() > 1 ? OTHER_COMPLETE_BONUS : 0;
+    }
+
+    /**
+     * Score every player by the end-of-game rules. Can be called at any time
+     * for current standings; reads the running totals, so it costs O(1) per
+     * player. Does not print or exit.
+     * @return immutable, ranked result
+     */
+    public GameResult score() {
+        List<GameResult.PlayerScore> scores = new ArrayList<>(players.size());
         for (Player p : players) {
-            Score s = new Score();
-            s.p = p;
-            s.base = p.getBuiltDistricts().stream().mapToInt(DistrictCard::getCost).sum();
-            Set<Color> cols = new HashSet<>();
-            for (DistrictCard d : p.getBuiltDistricts()) {
-                cols.add(d.getColor());
-            }
-            if (cols.containsAll(Arrays.asList(
-                    Color.RED, Color.BLUE, Color.YELLOW, Color.GREEN, Color.PURPLE))) {
-                s.diversity = 3;
-            }
-            if (p.getCitySize() >= 8) {
-                if (p.getId() == firstCompleter) s.bonusFirst = 4;
-                else                             s.bonusOther = 2;
-            }
-            s.extra = 0;  // no unique extras implemented
-            scores.add(s);
-        }
-        scores.sort(Comparator
-            .comparingInt(Score::total).reversed()
-            .thenComparingInt(s -> {
-                Character c = assignments.get(s.p);
-                return c == null ? 0 : -(c.ordinal() + 1);
-            })
-        );
-        for (Score s : scores) {
-            System.out.printf("Player %d:%n", s.p.getId());
-            System.out.printf("  Base (sum costs)     = %d%n", s.base);
-            System.out.printf("  Diversity bonus      = %d%n", s.diversity);
-            if (s.bonusFirst > 0) System.out.printf("  First-complete bonus = %d%n", s.bonusFirst);
-            if (s.bonusOther > 0) System.out.printf("  Other-complete bonus = %d%n", s.bonusOther);
-            System.out.printf("  Total                = %d%n%n", s.total());
-        }
-        Score winner = scores.get(0);
-        System.out.printf("Congratulations, Player %d wins with %d points!%n",
-                          winner.p.getId(), winner.total());
+            Character c = getCharacter(p);
+            scores.add(new GameResult.PlayerScore(p.getId(), p.getCityValue(),
+                diversityBonus(p), firstCompleteBonus(p), otherCompleteBonus(p),
+                c == null ? 0 : c.rank, 0));
+        }
+        return new GameResult(scores);
+    }
+
+    /** Print current standings, best first. */
+    public void showScores() {
+        for (GameResult.PlayerScore s : score().getRanking()) {
+            Player p = players.get(s.getPlayerId() - 1);
+            out().printf("%d. Player %d: %d points (districts=%d, colors=%d/5)%n",
+                s.getRank(), p.getId(), s.getTotal(), p.getCitySize(),
+                Integer.bitCount(p.getColorMask()));
+        }
+    }
+
+    /** Score the finished game, then print and exit if configured to. */
+    private void finishGame() {
+        result   = score();
+        finished = true;
+        if (exitOnEnd) scoreAndExit();
+        else           events.gameOver(result);
+    }
+
+    /** Report the final scoreboard, scoring only if not yet scored, and exit via System.exit(). */
+    private void scoreAndExit() {
+        if (result == null) result = score();
+        events.gameOver(result);
+        out().flush();
         System.exit(0);
     }
 
@@ -549,13 +1687,29 @@ public class Game implements Serializable {
      */
     public String listAllCharacters() {
         StringBuilder sb = new StringBuilder();
-        for (Character c : Character.values()) {
+        for (Character c : CHARACTERS) {
             if (sb.length() > 0) sb.append(", ");
             sb.append(c.name().toLowerCase());
         }
         return sb.toString();
     }
 
+    /**
+     * Show a district card's cost, color and any special ability, by name.
+     * @param name card name, any case
+     * @return true if the name is a known card
+     */
+    public boolean showCardInfo(String name) {
+        DistrictCard card = districtDeck.getCatalog().byName(name);
+        if (card == null) return false;
+        if (card.getText().isEmpty()) {
+            out().println(card.display() + ": no special ability.");
+        } else {
+            out().println(card.display() + ": " + card.getText());
+        }
+        return true;
+    }
+
     /**
      * Show special ability text for a purple card at hand index.
      * @param idx 1-based hand index
@@ -563,14 +1717,14 @@ public class Game implements Serializable {
     public void showCardInfo(int idx) {
         HumanPlayer me = getHuman();
         if (idx < 1 || idx > me.getHandCards().size()) {
-            System.out.println("Invalid card index.");
+            out().println("Invalid card index.");
             return;
         }
         DistrictCard card = me.getHandCards().get(idx - 1);
         if (card.getColor() != Color.PURPLE || card.getText().isEmpty()) {
-            System.out.println("No special ability.");
+            out().println("No special ability.");
         } else {
-            System.out.println("Special ability of " + card.getName() + ": " + card.getText());
+            out().println("Special ability of " + card.getName() + ": " + card.getText());
         }
     }
 }
@@ -0,0 +1,174 @@
+package citadels;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Settings for building a {@link Game} without prompting on the console.
+ * <p>
+ * Used by simulations that run many games back to back: the player list is
+ * given up front and game events go to the configured listener, which by
+ * default discards them, so the game prints nothing.
+ */
+public final class GameConfig {
+    /** Fewest players the selection rules support. */
+    public static final int MIN_PLAYERS = 4;
+
+    /** Most players the selection rules support. */
+    public static final int MAX_PLAYERS = 7;
+
+    private final List<Player> players;
+    private final GameEventListener listener;
+    private final boolean exitOnEnd;
+    private final Long seed;
+
+    private GameConfig(List<Player> players, GameEventListener listener,
+                       boolean exitOnEnd, Long seed) {
+        this.players   = Collections.unmodifiableList(players);
+        this.listener  = listener;
+        this.exitOnEnd = exitOnEnd;
+        this.seed      = seed;
+    }
+
+    /** @return a new builder with no players and no event output */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** @return players in seat order (seat i has id i+1) */
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    /** @return listener for the game's events */
+    public GameEventListener getEventListener() {
+        return listener;
+    }
+
+    /** @return true if the game should call System.exit after scoring */
+    public boolean isExitOnEnd() {
+        return exitOnEnd;
+    }
+
+    /**
+     * Create the random source for a game built from this config.
+     * @return a generator seeded from {@code seed}, or an unseeded one
+     */
+    SplitMix64 newRandom() {
+        return seed == null ? new SplitMix64() : new SplitMix64(seed);
+    }
+
+    /**
+     * Builder for {@link GameConfig}.
+     */
+    public static final class Builder {
+        private final List<Player> players = new ArrayList<>();
+        private int playerCount = -1;
+        private GameEventListener listener = GameEventListener.NO_OP;
+        private boolean exitOnEnd = false;
+        private Long seed;
+
+        private Builder() { }
+
+        /**
+         * Set the number of players. Seats not given explicitly with
+         * {@link #addPlayer(Player)} are filled with AIPlayers.
+         * @param n player count [4-7]
+         * @return this builder
+         */
+        public Builder playerCount(int n) {
+            this.playerCount = n;
+            return this;
+        }
+
+        /**
+         * Add the next seat. Its id must equal its 1-based seat number.
+         * @param p player to seat
+         * @return this builder
+         */
+        public Builder addPlayer(Player p) {
+            players.add(p);
+            return this;
+        }
+
+        /**
+         * Seat all given players in order.
+         * @param ps players, ids 1…n
+         * @return this builder
+         */
+        public Builder players(List<? extends Player> ps) {
+            players.addAll(ps);
+            return this;
+        }
+
+        /**
+         * Send game events to the given listener (default: discard them).
+         * @param l event listener
+         * @return this builder
+         */
+        public Builder listener(GameEventListener l) {
+            this.listener = l;
+            return this;
+        }
+
+        /**
+         * Shorthand for rendering events as console text, or discarding them.
+         * @param on true to print game progress to System.out
+         * @return this builder
+         */
+        public Builder console(boolean on) {
+            return listener(on ? new ConsoleRenderer() : GameEventListener.NO_OP);
+        }
+
+        /**
+         * Print the scoreboard and exit the JVM when the game ends, as the
+         * interactive game does (off by default).
+         * @param on true to call System.exit after scoring
+         * @return this builder
+         */
+        public Builder exitOnEnd(boolean on) {
+            this.exitOnEnd = on;
+            return this;
+        }
+
+        /**
+         * Seed the game's random source so the whole game is reproducible.
+         * @param seed any value; equal seeds give identical games
+         * @return this builder
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Validate and build the configuration.
+         * @return the config
+         * @throws IllegalArgumentException if the player count is out of
+         *         range or the seat ids are not 1…n
+         */
+        public GameConfig build() {
+            List<Player> seats = new ArrayList<>(players);
+            int n = playerCount < 0 ? seats.size() : playerCount;
+            if (n < MIN_PLAYERS || n > MAX_PLAYERS) {
+                throw new IllegalArgumentException(
+                    "Player count must be " + MIN_PLAYERS + "-" + MAX_PLAYERS + ": " + n);
+            }
+            if (seats.size() > n) {
+                throw new IllegalArgumentException(
+                    seats.size() + " players given for a " + n + "-player game");
+            }
+            for (int i = seats.size() + 1; i <= n; i++) {
+                seats.add(new AIPlayer(i));
+            }
+            for (int i = 0; i < n; i++) {
+                if (seats.get(i).getId() != i + 1) {
+                    throw new IllegalArgumentException(
+                        "Player in seat " + (i + 1) + " has id " + seats.get(i).getId());
+                }
+            }
+            return new GameConfig(seats, listener, exitOnEnd, seed);
+        }
+    }
+}
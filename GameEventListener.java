@@ -0,0 +1,166 @@
+package citadels;
+
+import java.util.List;
+
+/**
+ * Receives typed notifications as a game progresses.
+ * <p>
+ * The engine reports what happened through this interface instead of
+ * printing; {@link ConsoleRenderer} turns events into the familiar console
+ * text, {@link #NO_OP} discards them so headless games do no formatting, and
+ * {@link AsyncEventListener} hands them to another listener on a background
+ * thread. Every value a listener needs is passed as an argument: listeners
+ * may read a player's id and type but not their mutable state (gold, hand),
+ * which may have changed by the time an asynchronous listener runs.
+ * All methods default to doing nothing.
+ */
+public interface GameEventListener {
+
+    /** A listener that ignores every event. */
+    GameEventListener NO_OP = new GameEventListener() { };
+
+    /**
+     * A headless game has been set up.
+     * @param playerCount number of players
+     * @param crowned player who picks first
+     */
+    default void gameStarted(int playerCount, Player crowned) { }
+
+    /**
+     * A new phase has begun.
+     * @param phase SELECTION or TURN
+     */
+    default void phaseStarted(Game.Phase phase) { }
+
+    /** The face-down mystery character was set aside. */
+    default void mysteryCharacterRemoved() { }
+
+    /**
+     * A character was discarded face up for this round.
+     * @param c the discarded character
+     */
+    default void characterDiscarded(Character c) { }
+
+    /**
+     * A human player must pick a character before play continues.
+     * @param chooser the human player
+     * @param available characters they may choose from (a snapshot)
+     */
+    default void characterChoiceRequired(Player chooser, List<Character> available) { }
+
+    /**
+     * A player picked a (hidden) character.
+     * @param p the player who picked
+     */
+    default void characterChosen(Player p) { }
+
+    /**
+     * A rank is called in the turn phase.
+     * @param rank 1…8
+     * @param c the character of that rank
+     * @param owner the player holding it, or null if nobody does
+     */
+    default void turnStarted(int rank, Character c, Player owner) { }
+
+    /**
+     * A player took gold as income.
+     * @param p the player
+     * @param amount gold gained
+     * @param total the player's gold afterwards
+     */
+    default void goldTaken(Player p, int amount, int total) { }
+
+    /**
+     * A player drew income cards and kept one.
+     * @param p the player
+     * @param kept the card added to their hand
+     */
+    default void cardKept(Player p, DistrictCard kept) { }
+
+    /**
+     * A player built a district.
+     * @param p the builder
+     * @param card the district built
+     */
+    default void districtBuilt(Player p, DistrictCard card) { }
+
+    /**
+     * The Assassin named a character to kill this round.
+     * @param c the character killed
+     */
+    default void characterKilled(Character c) { }
+
+    /**
+     * The Thief named a character to rob this round.
+     * @param c the character robbed
+     */
+    default void characterRobbed(Character c) { }
+
+    /**
+     * A rank was called, but its character was killed: the turn is skipped.
+     * Fired instead of {@link #turnStarted}.
+     * @param rank 1…8
+     * @param c the killed character
+     * @param owner the player holding it
+     */
+    default void turnLost(int rank, Character c, Player owner) { }
+
+    /**
+     * A robbed character's turn began and the Thief took their gold.
+     * @param thief the player holding the Thief
+     * @param victim the player robbed
+     * @param amount gold taken
+     */
+    default void goldStolen(Player thief, Player victim, int amount) { }
+
+    /**
+     * The Magician exchanged hands with another player.
+     * @param magician the player holding the Magician
+     * @param other the player swapped with
+     */
+    default void handsSwapped(Player magician, Player other) { }
+
+    /**
+     * A player drew cards through a character ability (Architect's extra
+     * cards, Magician's redraw).
+     * @param p the player
+     * @param count cards drawn
+     */
+    default void cardsDrawn(Player p, int count) { }
+
+    /**
+     * A character's turn began with income from their districts or a bonus.
+     * @param p the player
+     * @param c their character
+     * @param amount gold gained
+     * @param total the player's gold afterwards
+     */
+    default void characterIncome(Player p, Character c, int amount, int total) { }
+
+    /**
+     * The Warlord destroyed a district.
+     * @param warlord the player holding the Warlord
+     * @param victim the owner of the district
+     * @param card the district destroyed
+     */
+    default void districtDestroyed(Player warlord, Player victim, DistrictCard card) { }
+
+    /**
+     * The King's rank was called and their player takes the crown, picking
+     * first next round.
+     * @param p the new crowned player
+     */
+    default void crownPassed(Player p) { }
+
+    /**
+     * A player completed 8 districts first; the game ends after this round.
+     * @param p the first player to complete their city
+     */
+    default void endTriggered(Player p) { }
+
+    /**
+     * The game has been scored.
+     * @param result final standings
+     */
+    default void gameOver(GameResult result) { }
+}
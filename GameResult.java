@@ -0,0 +1,140 @@
+package citadels;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable outcome of scoring a game: each player's breakdown, ranked.
+ * <p>
+ * Players are ordered by total score; ties go to the player holding the
+ * higher-ranked character. Printing the scoreboard is left to the caller.
+ */
+public final class GameResult {
+
+    /**
+     * One player's score breakdown and final placing.
+     */
+    public static final class PlayerScore {
+        private final int playerId;
+        private final int base;
+        private final int diversity;
+        private final int firstCompleteBonus;
+        private final int otherCompleteBonus;
+        private final int tiebreak;
+        private final int rank;
+
+        /**
+         * @param playerId player number
+         * @param base sum of built district costs
+         * @param diversity bonus for all five colors (3 or 0)
+         * @param firstCompleteBonus bonus for completing the city first (4 or 0)
+         * @param otherCompleteBonus bonus for completing it later (2 or 0)
+         * @param tiebreak rank of the character held at the end (0 if none)
+         * @param rank 1-based placing, or 0 if not yet ranked
+         */
+        PlayerScore(int playerId, int base, int diversity, int firstCompleteBonus,
+                    int otherCompleteBonus, int tiebreak, int rank) {
+            this.playerId           = playerId;
+            this.base               = base;
+            this.diversity          = diversity;
+            this.firstCompleteBonus = firstCompleteBonus;
+            this.otherCompleteBonus = otherCompleteBonus;
+            this.tiebreak           = tiebreak;
+            this.rank               = rank;
+        }
+
+        /** @return player number */
+        public int getPlayerId()           { return playerId;           }
+
+        /** @return sum of built district costs */
+        public int getBase()               { return base;               }
+
+        /** @return diversity bonus (3 if all five colors built) */
+        public int getDiversity()          { return diversity;          }
+
+        /** @return bonus for being first to complete 8 districts */
+        public int getFirstCompleteBonus() { return firstCompleteBonus; }
+
+        /** @return bonus for completing 8 districts after the first player */
+        public int getOtherCompleteBonus() { return otherCompleteBonus; }
+
+        /** @return rank of the character held at the end (0 if none) */
+        public int getTiebreak()           { return tiebreak;           }
+
+        /** @return 1-based placing (1 = winner) */
+        public int getRank()               { return rank;               }
+
+        /** @return total points */
+        public int getTotal() {
+            return base + diversity + firstCompleteBonus + otherCompleteBonus;
+        }
+    }
+
+    /** Best score first, then the higher character rank. */
+    private static final Comparator<PlayerScore> ORDER = Comparator
+        .comparingInt(PlayerScore::getTotal)
+        .thenComparingInt(PlayerScore::getTiebreak)
+        .reversed();
+
+    private final List<PlayerScore> ranking;
+    private final PlayerScore[] byId;
+
+    /**
+     * Rank the given unranked scores.
+     * @param scores one entry per player, any order
+     */
+    GameResult(List<PlayerScore> scores) {
+        List<PlayerScore> sorted = new ArrayList<>(scores);
+        sorted.sort(ORDER);
+        List<PlayerScore> ranked = new ArrayList<>(sorted.size());
+        byId = new PlayerScore[sorted.size() + 1];
+        for (int i = 0; i < sorted.size(); i++) {
+            PlayerScore s = sorted.get(i);
+            PlayerScore r = new PlayerScore(s.playerId, s.base, s.diversity,
+                s.firstCompleteBonus, s.otherCompleteBonus, s.tiebreak, i + 1);
+            ranked.add(r);
+            if (r.playerId < byId.length) byId[r.playerId] = r;
+        }
+        ranking = Collections.unmodifiableList(ranked);
+    }
+
+    /** @return all players' scores, winner first */
+    public List<PlayerScore> getRanking() {
+        return ranking;
+    }
+
+    /** @return the winning player's score */
+    public PlayerScore getWinner() {
+        return ranking.get(0);
+    }
+
+    /**
+     * @param playerId player number 1…n
+     * @return that player's score
+     */
+    public PlayerScore forPlayer(int playerId) {
+        return byId[playerId];
+    }
+
+    /**
+     * Print the end-of-game scoreboard.
+     * @param out destination stream
+     */
+    public void print(PrintStream out) {
+        out.println("\n=== GAME OVER: Scoring ===");
+        for (PlayerScore s : ranking) {
+            out.printf("Player %d:%n", s.playerId);
+            out.printf("  Base (sum costs)     = %d%n", s.base);
+            out.printf("  Diversity bonus      = %d%n", s.diversity);
+            if (s.firstCompleteBonus > 0) out.printf("  First-complete bonus = %d%n", s.firstCompleteBonus);
+            if (s.otherCompleteBonus > 0) out.printf("  Other-complete bonus = %d%n", s.otherCompleteBonus);
+            out.printf("  Total                = %d%n%n", s.getTotal());
+        }
+        PlayerScore winner = getWinner();
+        out.printf("Congratulations, Player %d wins with %d points!%n",
+                   winner.playerId, winner.getTotal());
+    }
+}
@@ -0,0 +1,204 @@
+package citadels;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts many Citadels tables over TCP, one table per connection.
+ * <p>
+ * A connection is a console: the server asks for the player count, seats
+ * the client as player 1 against AIs and runs a {@link CommandProcessor}
+ * on the connection's streams until the game ends or the client leaves.
+ * Each session runs on its own thread, a virtual thread where the runtime
+ * has them (Java 21+), so an idle table costs only its game state and
+ * buffers. A table's {@link Game} is touched by its session thread only,
+ * so no game state is shared or locked.
+ * <p>
+ * Clients get the console's commands except those in
+ * {@link #HOST_COMMANDS}, which read or write the host's files or reveal
+ * hidden hands. The server listens on loopback only unless it is given
+ * an address to bind.
+ */
+public final class GameServer implements AutoCloseable {
+    /** Default port for {@code gradle server}. */
+    public static final int DEFAULT_PORT = 7878;
+
+    /** Bytes of output buffered per connection before it is written. */
+    private static final int OUTPUT_BUFFER = 2048;
+
+    /** Chars of input buffered per connection. */
+    private static final int INPUT_BUFFER = 256;
+
+    /** Console commands not offered to network clients. */
+    static final String[] HOST_COMMANDS = { "save", "load", "replay", "debug" };
+
+    private final ServerSocketChannel server;
+    private final ExecutorService sessions;
+    private final Thread acceptor;
+
+    /** Connections currently open. */
+    private final AtomicInteger open = new AtomicInteger();
+
+    /** Connections accepted since the server started. */
+    private final AtomicLong accepted = new AtomicLong();
+
+    private GameServer(ServerSocketChannel server) {
+        this.server   = server;
+        this.sessions = newSessionExecutor();
+        this.acceptor = new Thread(this::acceptLoop, "citadels-accept");
+        acceptor.setDaemon(true);
+    }
+
+    /**
+     * Listen on a loopback port and start accepting tables.
+     * @param port TCP port, or 0 for any free port
+     * @return the running server; close it to stop
+     * @throws IOException if the port cannot be bound
+     */
+    public static GameServer start(int port) throws IOException {
+        return start(InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * Listen on an address and port and start accepting tables.
+     * @param address local address to bind, e.g. the wildcard address to
+     *                accept clients on every interface
+     * @param port TCP port, or 0 for any free port
+     * @return the running server; close it to stop
+     * @throws IOException if the address cannot be bound
+     */
+    public static GameServer start(InetAddress address, int port) throws IOException {
+        ServerSocketChannel ch = ServerSocketChannel.open();
+        ch.bind(new InetSocketAddress(address, port), 4096);
+        GameServer s = new GameServer(ch);
+        s.acceptor.start();
+        return s;
+    }
+
+    /**
+     * One thread per task: virtual threads if this runtime has them,
+     * otherwise a cached pool of platform threads.
+     * @return the executor for sessions
+     */
+    static ExecutorService newSessionExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(null, r, "citadels-session", 256 * 1024);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /** @return the port the server listens on */
+    public int getPort() {
+        try {
+            return ((InetSocketAddress) server.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** @return number of connections (tables) currently open */
+    public int openTables() {
+        return open.get();
+    }
+
+    /** @return number of connections accepted so far */
+    public long acceptedTables() {
+        return accepted.get();
+    }
+
+    private void acceptLoop() {
+        while (server.isOpen()) {
+            SocketChannel ch;
+            try {
+                ch = server.accept();
+            } catch (AsynchronousCloseException e) {
+                return;
+            } catch (IOException e) {
+                continue;
+            }
+            accepted.incrementAndGet();
+            open.incrementAndGet();
+            sessions.execute(() -> serve(ch));
+        }
+    }
+
+    /** Run one table on a connection, on the session's thread. */
+    private void serve(SocketChannel ch) {
+        try (SocketChannel c = ch) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                Channels.newInputStream(c), StandardCharsets.UTF_8), INPUT_BUFFER);
+            PrintStream out = new PrintStream(new BufferedOutputStream(
+                Channels.newOutputStream(c), OUTPUT_BUFFER), false, StandardCharsets.UTF_8);
+            Game game = new Game(out);
+            CommandProcessor console = new CommandProcessor(game, InputSource.of(in), out);
+            console.unregister(HOST_COMMANDS);
+            console.run();
+            out.flush();
+        } catch (IOException | UncheckedIOException e) {
+            // The client left or the connection failed: drop the table
+        } finally {
+            open.decrementAndGet();
+        }
+    }
+
+    /**
+     * Stop accepting, close every open connection's session and wait for
+     * the sessions to end. If interrupted while waiting, returns early with
+     * the interrupt status set.
+     */
+    @Override
+    public void close() {
+        try {
+            server.close();
+        } catch (IOException e) {
+            // already closed
+        }
+        sessions.shutdownNow();
+        try {
+            sessions.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Run a server until the process is stopped.
+     * @param args [port] [bind address, default loopback]
+     * @throws IOException if the address cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        InetAddress address = args.length > 1 ? InetAddress.getByName(args[1])
+                                              : InetAddress.getLoopbackAddress();
+        GameServer s = start(address, port);
+        System.out.println("Citadels server listening on " + address.getHostAddress()
+                           + " port " + s.getPort());
+        try {
+            s.acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package citadels;
 
+import java.io.PrintStream;
+
 /**
  * The human-controlled player.
  */
@@ -24,6 +26,11 @@ public class HumanPlayer extends Player {
         }
     }
 
+    @Override
+    public HumanPlayer copy() {
+        return (HumanPlayer) new HumanPlayer(id).copyStateFrom(this);
+    }
+
     /** No-op: human takes actions via CommandProcessor. */
     @Override
     public void takeTurn(Game g) { /* no-op */ }
@@ -35,24 +42,40 @@ public class HumanPlayer extends Player {
     }
 
     /**
-     * Build a district from your hand by index.
+     * Build a district from your hand by index. Prints why if it cannot;
+     * a successful build is reported by the game as an event.
      * @param cardIndex 1-based index into hand
      * @param deck unused
+     * @return the district built, or null if the build was refused
+     */
+    public DistrictCard buildFromHand(int cardIndex, DistrictDeck deck) {
+        return tryBuild(cardIndex, System.out);
+    }
+
+    /**
+     * Build a district from your hand by index, printing why if it cannot.
+     * @param cardIndex 1-based index into hand
+     * @param out where to print a refusal
+     * @return the district built, or null if the build was refused
      */
-    public void buildFromHand(int cardIndex, DistrictDeck deck) {
+    DistrictCard tryBuild(int cardIndex, PrintStream out) {
         if (cardIndex < 1 || cardIndex > hand.size()) {
-            System.out.println("Invalid card index.");
-            return;
+            out.println("Invalid card index.");
+            return null;
         }
         DistrictCard card = hand.get(cardIndex - 1);
         if (card.getCost() > gold) {
-            System.out.println("You cannot afford to build this building.");
-            return;
+            out.println("You cannot afford to build this building.");
+            return null;
+        }
+        if (hasBuilt(card)) {
+            out.println("You have already built " + card.getName() + ".");
+            return null;
         }
         hand.remove(cardIndex - 1);
-        city.add(card);
+        addToCity(card);
         gold -= card.getCost();
-        System.out.println("Built: " + card.display());
+        return card;
     }
 }
 
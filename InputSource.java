@@ -0,0 +1,34 @@
+package citadels;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Where console lines come from: a terminal, a socket, a script.
+ * <p>
+ * A {@link CommandProcessor} pulls command lines from its source. A
+ * {@link Game} given a source answers its own prompts (player count, which
+ * income card to keep) by reading from it, blocking until a line arrives;
+ * a game without one instead waits in a {@link Game.Prompt} state until
+ * {@link Game#answer} is called, so a single thread can drive many games.
+ */
+@FunctionalInterface
+public interface InputSource {
+    /** System.in, through one reader shared by the whole process. */
+    InputSource STDIN = new StdinSource();
+
+    /**
+     * Next line of input, without its terminator.
+     * @return the line, or null once the input has ended
+     * @throws IOException if reading fails
+     */
+    String nextLine() throws IOException;
+
+    /**
+     * @param in reader to take lines from
+     * @return a source reading lines from the reader
+     */
+    static InputSource of(BufferedReader in) {
+        return in::readLine;
+    }
+}
@@ -0,0 +1,149 @@
+package citadels;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Rebuilds games recorded by an {@link EventJournal}.
+ * <p>
+ * Opening a journal maps it read-only and scans the record headers once to
+ * count events and index the embedded snapshots. {@link #gameAt} then
+ * restores the last snapshot before the requested event and re-applies
+ * only the actions recorded after it, with no event output.
+ */
+public final class JournalReplay {
+    private final MappedByteBuffer buf;
+
+    /** Offset just past the last record. */
+    private final int end;
+
+    /** Number of event records. */
+    private final int events;
+
+    /** Offset of each SNAPSHOT record, in file order. */
+    private final int[] snapshotAt;
+
+    /** Events recorded before each snapshot. */
+    private final int[] snapshotEvent;
+
+    private final int snapshots;
+
+    private JournalReplay(MappedByteBuffer buf) throws IOException {
+        this.buf = buf;
+        if (buf.limit() < EventJournal.HEADER_BYTES || buf.getInt(0) != EventJournal.MAGIC) {
+            throw new IOException("Not a Citadels journal");
+        }
+        int version = buf.getShort(4);
+        if (version != EventJournal.VERSION) {
+            throw new IOException("Unsupported journal version " + version);
+        }
+        int[] at = new int[16], ev = new int[16];
+        int n = 0, count = 0, pos = EventJournal.HEADER_BYTES;
+        while (pos < buf.limit()) {
+            byte type = buf.get(pos);
+            if (type == EventJournal.END) break;
+            if (type == EventJournal.ACTION) {
+                pos += 1 + EventJournal.ACTION_BYTES;
+            } else if (type == EventJournal.SNAPSHOT) {
+                if (n == at.length) {
+                    at = Arrays.copyOf(at, n * 2);
+                    ev = Arrays.copyOf(ev, n * 2);
+                }
+                at[n] = pos;
+                ev[n++] = count;
+                pos += 5 + buf.getInt(pos + 1);
+            } else if (type > 0 && type < EventJournal.EVENT_BYTES.length) {
+                count++;
+                pos += 1 + EventJournal.EVENT_BYTES[type];
+            } else {
+                throw new IOException("Corrupt journal at byte " + pos);
+            }
+        }
+        if (n == 0) throw new IOException("Journal has no snapshot");
+        this.end = Math.min(pos, buf.limit());
+        this.events = count;
+        this.snapshotAt = at;
+        this.snapshotEvent = ev;
+        this.snapshots = n;
+    }
+
+    /**
+     * Map a journal file and index it.
+     * @param file journal written by EventJournal
+     * @return the replay engine
+     * @throws IOException if the file cannot be read or is not a journal
+     */
+    public static JournalReplay open(File file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new JournalReplay(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    /** @return number of events recorded */
+    public int eventCount() {
+        return events;
+    }
+
+    /**
+     * @return the game as it stood when the journal ends
+     * @throws IOException if the journal is corrupt
+     */
+    public Game finalGame() throws IOException {
+        return gameAt(events);
+    }
+
+    /**
+     * Rebuild the game as it stood right after the action that produced
+     * event #index (0-based). Indexes past the last event give the final
+     * state. The returned game is headless and independent of the journal.
+     * @param index event number
+     * @return the rebuilt game
+     * @throws IOException if the journal is corrupt
+     * @throws IllegalArgumentException if index is negative
+     */
+    public Game gameAt(int index) throws IOException {
+        if (index < 0) throw new IllegalArgumentException("Event index must be >= 0");
+        int s = 0, hi = snapshots - 1; // last snapshot taken before event #index
+        while (s < hi) {
+            int mid = (s + hi + 1) >>> 1;
+            if (snapshotEvent[mid] <= index) s = mid;
+            else hi = mid - 1;
+        }
+        Game game = restore(snapshotAt[s]);
+        int count = snapshotEvent[s];
+        int pos = snapshotAt[s] + 5 + buf.getInt(snapshotAt[s] + 1);
+        while (pos < end) {
+            byte type = buf.get(pos);
+            if (type == EventJournal.ACTION) {
+                game.apply(buf.get(pos + 1), buf.getInt(pos + 2));
+                pos += 1 + EventJournal.ACTION_BYTES;
+                if (count > index) break;
+            } else if (type == EventJournal.SNAPSHOT) {
+                // Reached only when event #index was not followed by an action
+                // (e.g. a load): this snapshot is the state right after it.
+                if (count > index) return restore(pos);
+                pos += 5 + buf.getInt(pos + 1);
+            } else {
+                count++;
+                pos += 1 + EventJournal.EVENT_BYTES[type];
+            }
+        }
+        return game;
+    }
+
+    private Game restore(int at) throws IOException {
+        byte[] bytes = new byte[buf.getInt(at + 1)];
+        ByteBuffer src = buf.duplicate();
+        src.position(at + 5);
+        src.get(bytes);
+        return Game.readFrom(new DataInputStream(new ByteArrayInputStream(bytes)),
+                             GameEventListener.NO_OP);
+    }
+}
@@ -0,0 +1,365 @@
+package citadels;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * An AI that chooses its character, income and build by Monte Carlo search.
+ * <p>
+ * Each decision is a bandit over the legal choices, sampled with UCB1.
+ * A playout forks the game as this player sees it ({@link Game#rolloutFork}
+ * redeals opponents' hands and unrevealed characters at random), applies
+ * one choice and plays the game out with default AIs. Its reward is 1 for
+ * a win, otherwise half the ratio of this player's score to the winner's.
+ * Search is root-parallel: every worker thread runs its own bandit on
+ * the same root, and the visit counts are summed at the end. The most
+ * visited choice is played. An optional shared {@link TranspositionTable}
+ * carries results between searches of the same position.
+ * <p>
+ * Each decision stops at a time budget or an iteration budget, whichever
+ * comes first. The clock is checked between playouts and every few steps
+ * within one, so a decision overruns its budget by little more than a
+ * fork and a few steps; the defaults answer well inside 50 ms. Decisions
+ * made against the clock depend on machine speed, so a game with a
+ * time-bound MCTS seat replays exactly (autosave, journal) only if the
+ * time budget is never reached first.
+ */
+public class MctsPlayer extends AIPlayer {
+    private static final long serialVersionUID = 1L;
+
+    /** Default time budget per decision. */
+    public static final long DEFAULT_BUDGET_MILLIS = 30;
+
+    /** UCB1 exploration constant. */
+    private static final double EXPLORATION = 1.4;
+
+    /**
+     * Rollouts longer than this many steps, or still running at the
+     * deadline, are scored where they stop. A whole game takes a few
+     * hundred steps.
+     */
+    private static final int MAX_ROLLOUT_STEPS = 1000;
+
+    /** Rollout steps between deadline checks. */
+    private static final int DEADLINE_CHECK_STEPS = 16;
+
+    /** Decision kinds, for transposition table keys. */
+    private static final int PICK = 0, INCOME = 1, KEEP = 2, BUILD = 3;
+
+    private final long budgetNanos;
+    private final int maxIterations;
+    private final int threads;
+
+    /** Search results shared with other players and threads, or null. */
+    private TranspositionTable table;
+
+    /** Totals over all decisions, for {@link #playoutsPerSecond()}. */
+    private long playouts, searchNanos, decisions, worstNanos;
+
+    /**
+     * Search with the default time budget on every core.
+     * @param id player number
+     */
+    public MctsPlayer(int id) {
+        this(id, DEFAULT_BUDGET_MILLIS, Integer.MAX_VALUE,
+             Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param id player number
+     * @param budgetMillis time budget per decision
+     * @param maxIterations playout budget per decision, across all threads
+     * @param threads worker threads per decision
+     * @throws IllegalArgumentException if any budget is not positive
+     */
+    public MctsPlayer(int id, long budgetMillis, int maxIterations, int threads) {
+        super(id);
+        if (budgetMillis < 1 || maxIterations < 1 || threads < 1) {
+            throw new IllegalArgumentException("Budgets and threads must be positive");
+        }
+        this.budgetNanos   = budgetMillis * 1_000_000L;
+        this.maxIterations = maxIterations;
+        this.threads       = threads;
+    }
+
+    @Override
+    public MctsPlayer copy() {
+        MctsPlayer p = new MctsPlayer(id, budgetNanos / 1_000_000L, maxIterations, threads);
+        p.table = table;
+        return (MctsPlayer) p.copyStateFrom(this);
+    }
+
+    /**
+     * Share search results through a transposition table. Players sharing
+     * a table start each search from what any of them learned about the
+     * same position and decision before.
+     * @param table the table, or null to search from scratch
+     */
+    public void setTranspositionTable(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /** @return playouts run per second of search, over all decisions so far */
+    public double playoutsPerSecond() {
+        return searchNanos == 0 ? 0 : playouts * 1e9 / searchNanos;
+    }
+
+    /** @return number of decisions searched so far */
+    public long getDecisions() {
+        return decisions;
+    }
+
+    /** @return mean wall time per decision, in milliseconds */
+    public double meanDecisionMillis() {
+        return decisions == 0 ? 0 : searchNanos / 1e6 / decisions;
+    }
+
+    /** @return slowest decision so far, in milliseconds */
+    public double worstDecisionMillis() {
+        return worstNanos / 1e6;
+    }
+
+    // ─── Decisions ───────────────────────────────────────────────────────────
+
+    @Override
+    public Character pickCharacter(Game game, List<Character> available) {
+        if (available.size() == 1) return available.get(0);
+        Character[] choices = available.toArray(new Character[0]);
+        int[] ids = new int[choices.length];
+        for (int a = 0; a < ids.length; a++) ids[a] = choices[a].ordinal();
+        return choices[search(game, choices.length, choiceKeys(game, PICK, ids), (fork, a, deadline) -> {
+            fork.completePick(choices[a]);
+            return finish(fork, deadline);
+        })];
+    }
+
+    @Override
+    protected boolean wantsCards(Game game) {
+        return search(game, 2, choiceKeys(game, INCOME, new int[] { 0, 1 }), (fork, a, deadline) -> {
+            AIPlayer me = self(fork);
+            if (a == 1) me.drawIncome(fork);
+            else        me.takeGoldIncome(fork);
+            me.build(fork, me.chooseBuild(fork));
+            return endTurn(fork, deadline);
+        }) == 1;
+    }
+
+    @Override
+    protected boolean keepFirst(Game game, DistrictCard c1, DistrictCard c2) {
+        if (c1 == c2) return true;
+        long[] keys = choiceKeys(game, KEEP, new int[] { c1.getId(), c2.getId() });
+        return search(game, 2, keys, (fork, a, deadline) -> {
+            AIPlayer me = self(fork);
+            me.keepIncome(fork, a == 0 ? c1 : c2, a == 0 ? c2 : c1);
+            me.build(fork, me.chooseBuild(fork));
+            return endTurn(fork, deadline);
+        }) == 0;
+    }
+
+    @Override
+    protected DistrictCard chooseBuild(Game game) {
+        List<DistrictCard> choices = new ArrayList<>();
+        choices.add(null);
+        for (DistrictCard d : hand) {
+            if (d.getCost() <= gold && !choices.contains(d) && !hasBuilt(d)) choices.add(d);
+        }
+        if (choices.size() == 1) return null;
+        int[] ids = new int[choices.size()];
+        for (int a = 1; a < ids.length; a++) ids[a] = choices.get(a).getId() + 1;
+        return choices.get(search(game, choices.size(), choiceKeys(game, BUILD, ids), (fork, a, deadline) -> {
+            self(fork).build(fork, choices.get(a));
+            return endTurn(fork, deadline);
+        }));
+    }
+
+    // ─── Search ──────────────────────────────────────────────────────────────
+
+    /**
+     * Applies choice {@code a} to a determinized fork and plays it out,
+     * stopping at {@code deadline} (System.nanoTime()).
+     */
+    private interface Playout {
+        double play(Game fork, int a, long deadline);
+    }
+
+    private AIPlayer self(Game fork) {
+        return (AIPlayer) fork.getPlayers().get(id - 1);
+    }
+
+    /** Complete a turn this player acted in, then play out. */
+    private double endTurn(Game fork, long deadline) {
+        fork.finishTurnStep();
+        return finish(fork, deadline);
+    }
+
+    private double finish(Game fork, long deadline) {
+        for (int steps = 0; steps < MAX_ROLLOUT_STEPS && System.nanoTime() < deadline;
+             steps += DEADLINE_CHECK_STEPS) {
+            if (fork.playOut(DEADLINE_CHECK_STEPS)) break;
+        }
+        GameResult r = fork.isFinished() ? fork.getResult() : fork.score();
+        GameResult.PlayerScore me = r.forPlayer(id);
+        if (me.getRank() == 1) return 1.0;
+        return 0.5 * me.getTotal() / Math.max(1, r.getWinner().getTotal());
+    }
+
+    /**
+     * Keys for a decision's choices in the transposition table: the
+     * position hash combined with the decision kind and each choice's id.
+     * @return the keys, or null if no table is shared
+     */
+    private long[] choiceKeys(Game game, int kind, int[] ids) {
+        if (table == null) return null;
+        long root = game.hash() ^ Zobrist.key(Zobrist.DECISION, kind, -1);
+        long[] keys = new long[ids.length];
+        for (int a = 0; a < ids.length; a++) {
+            keys[a] = root ^ Zobrist.key(Zobrist.DECISION, kind, ids[a]);
+        }
+        return keys;
+    }
+
+    /** Reward sums and visits per choice. */
+    private static final class Stats {
+        final double[] reward;
+        final int[] visits;
+
+        Stats(int k) {
+            reward = new double[k];
+            visits = new int[k];
+        }
+
+        void add(Stats o) {
+            for (int a = 0; a < visits.length; a++) {
+                reward[a] += o.reward[a];
+                visits[a] += o.visits[a];
+            }
+        }
+    }
+
+    /**
+     * Sample choices 0…k-1 until the budget runs out. With a shared table,
+     * results already stored for these choices seed the bandits, and the
+     * new results are added back.
+     * @param keys table key per choice, or null
+     * @return the most visited choice
+     */
+    private int search(Game game, int k, long[] keys, Playout playout) {
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        int seat = game.getPlayers().indexOf(this);
+        SplittableRandom seeds = new SplittableRandom(game.getRandom().nextLong());
+
+        Stats prior = new Stats(k);
+        if (keys != null) {
+            for (int a = 0; a < k; a++) prior.visits[a] = table.lookup(keys[a], prior.reward, a);
+        }
+        Stats found = new Stats(k);
+        int n = Math.min(threads, Math.max(1, maxIterations / k));
+        int quota = Math.max(k, maxIterations / n);
+        if (n == 1) {
+            found.add(bandit(game, seat, k, playout, deadline, quota, seeds.nextLong(), prior));
+        } else {
+            List<Callable<Stats>> workers = new ArrayList<>(n);
+            for (int w = 0; w < n; w++) {
+                long seed = seeds.nextLong();
+                workers.add(() -> bandit(game, seat, k, playout, deadline, quota, seed, prior));
+            }
+            try {
+                for (Future<Stats> f : ForkJoinPool.commonPool().invokeAll(workers)) {
+                    found.add(f.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search failed", e.getCause());
+            }
+        }
+
+        int best = 0;
+        for (int a = 0; a < k; a++) {
+            playouts += found.visits[a];
+            if (keys != null) table.add(keys[a], found.reward[a], found.visits[a]);
+            if (prior.visits[a] + found.visits[a] > prior.visits[best] + found.visits[best]) best = a;
+        }
+        long took = System.nanoTime() - start;
+        searchNanos += took;
+        worstNanos = Math.max(worstNanos, took);
+        decisions++;
+        return best;
+    }
+
+    /**
+     * One worker's UCB1 bandit: try every unvisited choice once, then the
+     * one with the best upper confidence bound, until the deadline or quota.
+     * The first playout always runs, so every search has a result; after
+     * that the deadline holds even if some choices are still unvisited.
+     * @param prior results known before the search (not modified)
+     * @return this worker's new results only
+     */
+    private static Stats bandit(Game root, int seat, int k, Playout playout,
+                                long deadline, int quota, long seed, Stats prior) {
+        SplittableRandom seeds = new SplittableRandom(seed);
+        Stats s = new Stats(k);
+        int known = 0;
+        for (int c = 0; c < k; c++) known += prior.visits[c];
+        for (int it = 0; it < quota && (it == 0 || System.nanoTime() < deadline); it++) {
+            int a = -1;
+            double logN = Math.log(known + it), bestUcb = -1;
+            for (int c = 0; c < k; c++) {
+                int v = prior.visits[c] + s.visits[c];
+                if (v == 0) {
+                    a = c;
+                    break;
+                }
+                double ucb = (prior.reward[c] + s.reward[c]) / v
+                           + EXPLORATION * Math.sqrt(logN / v);
+                if (ucb > bestUcb) {
+                    bestUcb = ucb;
+                    a = c;
+                }
+            }
+            s.reward[a] += playout.play(root.rolloutFork(seeds.nextLong(), seat), a, deadline);
+            s.visits[a]++;
+        }
+        return s;
+    }
+
+    /**
+     * Play MCTS seat 1 against default AIs and report its win rate,
+     * playouts/sec and decision latency. A first, uncounted game warms up
+     * the JIT, whose cold start would otherwise be the worst decision.
+     * @param args [games] [players] [budget ms] [threads]
+     */
+    public static void main(String[] args) {
+        int games   = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long budget = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_BUDGET_MILLIS;
+        int threads = args.length > 3 ? Integer.parseInt(args[3])
+                                       : Runtime.getRuntime().availableProcessors();
+        int wins = 0;
+        long playouts = 0, nanos = 0, decisions = 0;
+        double worst = 0;
+        for (int i = -1; i < games; i++) {
+            MctsPlayer mcts = new MctsPlayer(1, budget, Integer.MAX_VALUE, threads);
+            Game g = new Game(GameConfig.builder().addPlayer(mcts).playerCount(players)
+                                        .seed(i).build());
+            while (!g.isFinished()) g.processT();
+            if (i < 0) continue;
+            if (g.getResult().getWinner().getPlayerId() == 1) wins++;
+            playouts  += mcts.playouts;
+            nanos     += mcts.searchNanos;
+            decisions += mcts.decisions;
+            worst = Math.max(worst, mcts.worstDecisionMillis());
+        }
+        System.out.printf("MCTS won %d of %d games (%.0f%%; 1 in %d by chance)%n",
+                          wins, games, 100.0 * wins / games, players);
+        System.out.printf("%.0f playouts/sec on %d threads, %.1f ms mean / %.1f ms worst per decision (target 50 ms)%n",
+                          nanos == 0 ? 0 : playouts * 1e9 / nanos, threads,
+                          decisions == 0 ? 0 : nanos / 1e6 / decisions, worst);
+    }
+}
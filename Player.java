@@ -1,7 +1,9 @@
 package citadels;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -16,11 +18,23 @@ public abstract class Player implements Serializable {
     /** Gold in hand. */
     protected int gold = 2;
 
-    /** Cards in hand. */
-    protected List<DistrictCard> hand = new ArrayList<>();
+    /** Cards in hand (a {@link CardList}, so it hashes itself). */
+    protected List<DistrictCard> hand;
 
-    /** Built districts in city. */
-    protected List<DistrictCard> city = new ArrayList<>();
+    /** Built districts in city (a {@link CardList}). */
+    protected List<DistrictCard> city;
+
+    /** Bitmask with every color present in the city (all five set = 0b11111). */
+    public static final int ALL_COLORS = (1 << Color.values().length) - 1;
+
+    /** Sum of costs of built districts, kept up to date by addToCity(). */
+    protected int cityValue;
+
+    /** Bit (1 << color.ordinal()) set for each color built. */
+    protected int colorMask;
+
+    /** 1 if this player completed their city first, 2 if second, …; 0 if not yet. */
+    protected int completionOrder;
 
     /**
      * Construct a player.
@@ -28,6 +42,8 @@ public abstract class Player implements Serializable {
      */
     public Player(int id) {
         this.id = id;
+        this.hand = new CardList(Zobrist.HAND, id);
+        this.city = new CardList(Zobrist.CITY, id);
     }
 
     /** @return this player’s id */
@@ -61,6 +77,28 @@ public abstract class Player implements Serializable {
      */
     public abstract void takeTurn(Game game);
 
+    /**
+     * @return an independent player of the same kind with the same id,
+     *         gold, hand and city (see {@link Game#fork()})
+     */
+    public abstract Player copy();
+
+    /**
+     * Copy another player's state into this one. Cards are immutable and
+     * shared; only the lists are copied.
+     * @param src player to copy
+     * @return this player
+     */
+    protected Player copyStateFrom(Player src) {
+        gold            = src.gold;
+        hand            = new CardList(Zobrist.HAND, id, src.hand);
+        city            = new CardList(Zobrist.CITY, id, src.city);
+        cityValue       = src.cityValue;
+        colorMask       = src.colorMask;
+        completionOrder = src.completionOrder;
+        return this;
+    }
+
     /** @return number of cards in hand */
     public int getHandSize() {
         return hand.size();
@@ -76,8 +114,108 @@ public abstract class Player implements Serializable {
         return city;
     }
 
+    /**
+     * O(1): the city keeps a bitset of the districts in it.
+     * @param d a district
+     * @return true if a district with the same name is already built
+     */
+    public boolean hasBuilt(DistrictCard d) {
+        return ((CardList) city).containsDistrict(d);
+    }
+
     /** @return list of cards in hand */
     public List<DistrictCard> getHandCards() {
         return hand;
     }
+
+    /**
+     * Add a built district to the city and update the running score state.
+     * All builds should go through here rather than the city list.
+     * @param card district being built
+     */
+    protected void addToCity(DistrictCard card) {
+        city.add(card);
+        cityValue += card.getCost();
+        colorMask |= 1 << card.getColor().ordinal();
+    }
+
+    /**
+     * Remove a built district, e.g. one destroyed by the Warlord, and update
+     * the running score state.
+     * @param index position in the city
+     * @return the district removed
+     */
+    protected DistrictCard removeFromCity(int index) {
+        DistrictCard card = city.remove(index);
+        cityValue -= card.getCost();
+        if (countBuilt(card.getColor()) == 0) colorMask &= ~(1 << card.getColor().ordinal());
+        return card;
+    }
+
+    /**
+     * O(log n), through the city's index.
+     * @param color a color
+     * @return number of districts of that color built
+     */
+    public int countBuilt(Color color) {
+        return ((CardList) city).count(color);
+    }
+
+    /** @return sum of built district costs */
+    public int getCityValue() {
+        return cityValue;
+    }
+
+    /** @return bitmask of built colors, bit i for Color ordinal i */
+    public int getColorMask() {
+        return colorMask;
+    }
+
+    /**
+     * Zobrist hash of this player's gold, hand and city (as multisets).
+     * O(1): the card lists keep their own hashes up to date.
+     * @return the hash
+     */
+    public long hash() {
+        return Zobrist.key(Zobrist.GOLD, id, gold)
+             ^ ((CardList) hand).hash() ^ ((CardList) city).hash();
+    }
+
+    /** @return order in which this player completed their city, 0 if not yet */
+    public int getCompletionOrder() {
+        return completionOrder;
+    }
+
+    /**
+     * Write gold, completion order, hand and city for a binary snapshot.
+     * @param out destination
+     * @param catalog catalog used to encode cards as ids
+     * @throws IOException if the destination fails
+     */
+    void writeState(DataOutput out, CardCatalog catalog) throws IOException {
+        out.writeInt(gold);
+        out.writeByte(completionOrder);
+        out.writeShort(hand.size());
+        for (DistrictCard d : hand) catalog.writeCard(out, d);
+        out.writeShort(city.size());
+        for (DistrictCard d : city) catalog.writeCard(out, d);
+    }
+
+    /**
+     * Replace gold, completion order, hand and city with state written by
+     * {@link #writeState}; the running city totals are rebuilt from the cards.
+     * @param in source
+     * @param catalog catalog used to decode card ids
+     * @throws IOException if the source fails or is corrupt
+     */
+    void readState(DataInput in, CardCatalog catalog) throws IOException {
+        gold = in.readInt();
+        completionOrder = in.readUnsignedByte();
+        hand.clear();
+        for (int n = in.readUnsignedShort(); n > 0; n--) hand.add(catalog.readCard(in));
+        city.clear();
+        cityValue = 0;
+        colorMask = 0;
+        for (int n = in.readUnsignedShort(); n > 0; n--) addToCity(catalog.readCard(in));
+    }
 }
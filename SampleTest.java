@@ -112,6 +112,29 @@ public class SampleTest {
         assertTrue(ai.getBuiltDistricts().contains(card));
     }
 
+    @Test public void testNoDuplicateDistricts() {
+        CardCatalog catalog = CardCatalog.standard();
+        DistrictCard temple = catalog.byName("Temple");
+        AIPlayer ai = new AIPlayer(99);
+        ai.getHandCards().add(temple);
+        ai.getHandCards().add(temple);
+        ai.addGold(10);
+        assertFalse(ai.hasBuilt(temple));
+        assertTrue(ai.buildIndex(1));
+        assertTrue(ai.hasBuilt(temple));
+        assertFalse(ai.buildIndex(1));
+        assertEquals(1, ai.getCitySize());
+        assertEquals(-1, ((CardList) ai.getHandCards()).bestAffordable(10, (CardList) ai.getBuiltDistricts()));
+
+        HumanPlayer h = new HumanPlayer(1);
+        h.getHandCards().add(temple);
+        h.getHandCards().add(temple);
+        h.addGold(10);
+        assertNotNull(h.buildFromHand(1, null));
+        assertNull(h.buildFromHand(1, null));
+        assertEquals(temple.getCost(), h.getCityValue());
+    }
+
     @Test public void testAIPlayerTurnLogic() {
         String mockTSV = "Name\tQty\tcolor\tcost\ttext\nCastle\t5\tyellow\t3\t\n";
         ByteArrayInputStream input = new ByteArrayInputStream(mockTSV.getBytes());
@@ -150,8 +173,9 @@ public class SampleTest {
         Game g = new Game();
         HumanPlayer p = g.getHuman();
         p.addGold(100);
+        CardCatalog catalog = CardCatalog.standard();
         for (int i = 0; i < 8; i++) {
-            p.getHandCards().add(new DistrictCard("Test", Color.RED, 1, ""));
+            p.getHandCards().add(0, catalog.get(i));
             p.buildFromHand(1, g.getDeck());
         }
         g.checkEndTrigger(p);
@@ -354,11 +378,9 @@ public class SampleTest {
     @Test
     void testDoTurnStepNoOwnerBranch() throws Exception {
         Game g = freshGame();
-        Field avail = Game.class.getDeclaredField("availableChars");
+        Field avail = Game.class.getDeclaredField("availableMask");
         avail.setAccessible(true);
-        @SuppressWarnings("unchecked")
-        List<Character> list = (List<Character>) avail.get(g);
-        list.clear(); list.add(Character.ARCHITECT);
+        avail.setInt(g, CharacterMask.bit(Character.ARCHITECT));
         Field chooser = Game.class.getDeclaredField("chooserIndex");
         chooser.setAccessible(true);
         chooser.setInt(g, 0);
@@ -444,6 +466,747 @@ public class SampleTest {
         assertTrue(list.contains("ASSASSIN"));
     }
 
+    @Test
+    void testHeadlessGameRunsToEndWithoutOutput() {
+        PrintStream old = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            Game g = new Game(GameConfig.builder().playerCount(5).build());
+            assertNull(g.getHuman());
+            for (int i = 0; i < 100_000 && !g.isFinished(); i++) g.processT();
+            assertTrue(g.isFinished());
+        } finally {
+            System.setOut(old);
+        }
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    void testGameConfigValidation() {
+        assertThrows(IllegalArgumentException.class,
+            () -> GameConfig.builder().playerCount(3).build());
+        assertThrows(IllegalArgumentException.class,
+            () -> GameConfig.builder().addPlayer(new AIPlayer(2)).playerCount(4).build());
+        GameConfig cfg = GameConfig.builder().addPlayer(new HumanPlayer(1)).playerCount(4).build();
+        assertEquals(4, cfg.getPlayers().size());
+        assertTrue(cfg.getPlayers().get(0) instanceof HumanPlayer);
+        assertTrue(cfg.getPlayers().get(3) instanceof AIPlayer);
+    }
+
+    @Test
+    void testTournamentMergesStats() {
+        TournamentStats stats = new Tournament(4).run(200, 2);
+        assertEquals(200, stats.getGames());
+        long wins = 0;
+        for (int id = 1; id <= 4; id++) wins += stats.getWins(id);
+        assertEquals(200, wins);
+        assertTrue(stats.meanScore(1) > 0);
+        assertEquals(0, stats.getUnfinished());
+
+        TournamentStats stuck = new TournamentStats(4);
+        stuck.record(new Game(GameConfig.builder().playerCount(4).seed(1L).build()));
+        assertEquals(0, stuck.getGames());
+        assertEquals(1, stats.merge(stuck).getUnfinished());
+        assertTrue(stats.toString().contains("1 more abandoned"));
+    }
+
+    @Test
+    void testHeadlessGameReturnsRankedResult() {
+        Game g = new Game(GameConfig.builder().playerCount(6).seed(3L).build());
+        assertNull(g.getResult());
+        while (!g.isFinished()) g.processT();
+        GameResult r = g.getResult();
+        assertNotNull(r);
+        assertEquals(6, r.getRanking().size());
+        for (int i = 0; i < 6; i++) {
+            GameResult.PlayerScore s = r.getRanking().get(i);
+            assertEquals(i + 1, s.getRank());
+            assertSame(s, r.forPlayer(s.getPlayerId()));
+            if (i > 0) assertTrue(s.getTotal() <= r.getRanking().get(i - 1).getTotal());
+        }
+        assertEquals(1, r.getWinner().getRank());
+        assertThrows(UnsupportedOperationException.class, () -> r.getRanking().clear());
+    }
+
+    @Test
+    void testOwnerTableMatchesPicks() {
+        Game g = new Game(GameConfig.builder().playerCount(7).seed(11L).build());
+        while (g.getPhase() == Game.Phase.SELECTION) g.processT();
+        for (Player p : g.getPlayers()) {
+            Character c = g.getCharacter(p);
+            assertNotNull(c);
+            assertSame(p, g.getOwner(c));
+        }
+        for (int i = 0; i <= Character.values().length; i++) g.processT();
+        assertEquals(Game.Phase.SELECTION, g.getPhase());
+        for (Character c : Character.values()) assertNull(g.getOwner(c));
+    }
+
+    @Test
+    void testLiveScoreTracksBuilds() {
+        Game g = new Game(GameConfig.builder().playerCount(4).seed(5L).build());
+        AIPlayer p = (AIPlayer) g.getPlayers().get(1);
+        p.getHandCards().clear();
+        p.addGold(100);
+        Color[] colors = Color.values();
+        for (int i = 0; i < 8; i++) {
+            p.getHandCards().add(new DistrictCard("D" + i, colors[i % colors.length], i + 1, ""));
+            p.buildIndex(1);
+            g.checkEndTrigger(p);
+        }
+        assertEquals(36, p.getCityValue());
+        assertEquals(Player.ALL_COLORS, p.getColorMask());
+        assertEquals(1, p.getCompletionOrder());
+        assertEquals(36 + 3 + 4, g.liveScore(p));
+        assertEquals(g.liveScore(p), g.score().forPlayer(2).getTotal());
+
+        while (!g.isFinished()) g.processT();
+        for (Player q : g.getPlayers()) {
+            assertEquals(g.liveScore(q), g.getResult().forPlayer(q.getId()).getTotal());
+        }
+    }
+
+    @Test
+    void testEventListenersRenderSameText() throws Exception {
+        ByteArrayOutputStream direct = new ByteArrayOutputStream();
+        Game g1 = new Game(GameConfig.builder().playerCount(4).seed(9L)
+            .listener(new ConsoleRenderer(new PrintStream(direct))).build());
+        while (!g1.isFinished()) g1.processT();
+
+        ByteArrayOutputStream buffered = new ByteArrayOutputStream();
+        AsyncEventListener async =
+            new AsyncEventListener(new ConsoleRenderer(new PrintStream(buffered)), 64);
+        Game g2 = new Game(GameConfig.builder().playerCount(4).seed(9L).listener(async).build());
+        while (!g2.isFinished()) g2.processT();
+        async.close();
+
+        assertTrue(direct.toString().contains("TURN PHASE"));
+        assertTrue(direct.toString().contains("GAME OVER"));
+        assertEquals(direct.toString(), buffered.toString());
+    }
+
+    @Test
+    void testAsyncListenerSurvivesFailingTarget() {
+        int[] delivered = new int[1];
+        AsyncEventListener async = new AsyncEventListener(new GameEventListener() {
+            @Override
+            public void phaseStarted(Game.Phase phase) {
+                delivered[0]++;
+                throw new IllegalStateException("renderer broke");
+            }
+        }, 1);
+        Game g = new Game(GameConfig.builder().playerCount(4).seed(9L).listener(async).build());
+        assertTrue(g.playOut(100_000));
+        IllegalStateException e = assertThrows(IllegalStateException.class, async::close);
+        assertEquals("renderer broke", e.getMessage());
+        assertTrue(delivered[0] > 1);
+    }
+
+    @Test
+    void testCardCatalogSharesInstances() {
+        CardCatalog cat = CardCatalog.standard();
+        assertSame(cat, CardCatalog.standard());
+        DistrictCard well = cat.byName("wishing well");
+        assertNotNull(well);
+        assertSame(well, cat.get(well.getId()));
+        assertEquals(Color.PURPLE, well.getColor());
+
+        DistrictDeck deck = new DistrictDeck(cat, new SplitMix64(1L));
+        int drawn = 0;
+        while (!deck.isEmpty()) {
+            DistrictCard d = deck.draw();
+            assertSame(cat.get(d.getId()), d);
+            drawn++;
+        }
+        assertEquals(cat.deckSize(), drawn);
+    }
+
+    @Test
+    void testDistrictDeckRecyclesDiscards() {
+        String mockTSV = "Name\tQty\tcolor\tcost\ttext\nCastle\t2\tyellow\t4\t\nTemple\t1\tblue\t1\t\n";
+        DistrictDeck deck = new DistrictDeck(new ByteArrayInputStream(mockTSV.getBytes()));
+        DistrictCard a = deck.draw();
+        DistrictCard b = deck.draw();
+        DistrictCard c = deck.draw();
+        assertTrue(deck.isEmpty());
+        assertNull(deck.draw());
+
+        deck.discard(b);
+        deck.discard(new DistrictCard("Foreign", Color.RED, 1, ""));
+        assertEquals(1, deck.discardSize());
+        assertFalse(deck.isEmpty());
+        assertSame(b, deck.draw());
+        assertEquals(0, deck.discardSize());
+        assertNotNull(a);
+        assertNotNull(c);
+    }
+
+    @Test
+    void testBinarySnapshotRestoresExactly() throws IOException {
+        Game g = new Game(GameConfig.builder().playerCount(5).seed(11L).build());
+        for (int i = 0; i < 40 && !g.isFinished(); i++) g.processT();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        g.writeSnapshot(new DataOutputStream(bytes));
+        Game r = Game.readFrom(new DataInputStream(
+            new ByteArrayInputStream(bytes.toByteArray())), GameEventListener.NO_OP);
+
+        ByteArrayOutputStream again1 = new ByteArrayOutputStream();
+        ByteArrayOutputStream again2 = new ByteArrayOutputStream();
+        g.writeSnapshot(new DataOutputStream(again1));
+        r.writeSnapshot(new DataOutputStream(again2));
+        assertArrayEquals(again1.toByteArray(), again2.toByteArray());
+
+        while (!g.isFinished()) g.processT();
+        while (!r.isFinished()) r.processT();
+        for (int id = 1; id <= 5; id++) {
+            assertEquals(g.getResult().forPlayer(id).getTotal(), r.getResult().forPlayer(id).getTotal());
+            assertEquals(g.getPlayers().get(id - 1).getBuiltDistricts(),
+                         r.getPlayers().get(id - 1).getBuiltDistricts());
+        }
+
+        byte[] bad = bytes.toByteArray().clone();
+        bad[0] = 'X';
+        assertThrows(IOException.class, () -> r.readSnapshot(
+            new DataInputStream(new ByteArrayInputStream(bad))));
+    }
+
+    @Test
+    void testAutosaveRecoversFromSnapshotAndLog() throws Exception {
+        File dir = java.nio.file.Files.createTempDirectory("autosave").toFile();
+        Game g = new Game(GameConfig.builder().playerCount(4).seed(5L).build());
+        Autosave autosave = Autosave.attach(g, dir, 10);
+        for (int i = 0; i < 37 && !g.isFinished(); i++) g.processT();
+        autosave.close();
+        assertNull(autosave.failure());
+
+        Game r = Autosave.recover(dir, GameEventListener.NO_OP, false);
+        assertNotNull(r);
+        g.setActionLog(ActionLog.NONE);
+        ByteArrayOutputStream live = new ByteArrayOutputStream();
+        ByteArrayOutputStream recovered = new ByteArrayOutputStream();
+        g.writeSnapshot(new DataOutputStream(live));
+        r.writeSnapshot(new DataOutputStream(recovered));
+        assertArrayEquals(live.toByteArray(), recovered.toByteArray());
+
+        // Autosaving must not change how a seeded game plays
+        Game plain = new Game(GameConfig.builder().playerCount(4).seed(5L).build());
+        for (int i = 0; i < 37 && !plain.isFinished(); i++) plain.processT();
+        ByteArrayOutputStream unsaved = new ByteArrayOutputStream();
+        plain.writeSnapshot(new DataOutputStream(unsaved));
+        assertArrayEquals(unsaved.toByteArray(), live.toByteArray());
+
+        assertNull(Autosave.recover(new File(dir, "missing"), GameEventListener.NO_OP, false));
+        for (File f : dir.listFiles()) f.delete();
+        dir.delete();
+    }
+
+    private static String position(Game g) {
+        StringBuilder sb = new StringBuilder(g.getPhase().name());
+        for (Player p : g.getPlayers()) {
+            sb.append(' ').append(p.getGold()).append('/').append(p.getHandCards())
+              .append('/').append(p.getBuiltDistricts());
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void testJournalReplaySeeksToAnyEvent() throws IOException {
+        int[] events = {0};
+        GameEventListener counter = new GameEventListener() {
+            @Override public void phaseStarted(Game.Phase phase) { events[0]++; }
+            @Override public void characterChosen(Player p) { events[0]++; }
+            @Override public void turnStarted(int rank, Character c, Player owner) { events[0]++; }
+            @Override public void goldTaken(Player p, int amount, int total) { events[0]++; }
+            @Override public void cardKept(Player p, DistrictCard kept) { events[0]++; }
+            @Override public void districtBuilt(Player p, DistrictCard card) { events[0]++; }
+            @Override public void mysteryCharacterRemoved() { events[0]++; }
+            @Override public void characterDiscarded(Character c) { events[0]++; }
+            @Override public void endTriggered(Player p) { events[0]++; }
+            @Override public void gameOver(GameResult r) { events[0]++; }
+            @Override public void characterKilled(Character c) { events[0]++; }
+            @Override public void characterRobbed(Character c) { events[0]++; }
+            @Override public void turnLost(int rank, Character c, Player owner) { events[0]++; }
+            @Override public void goldStolen(Player t, Player v, int amount) { events[0]++; }
+            @Override public void handsSwapped(Player m, Player o) { events[0]++; }
+            @Override public void cardsDrawn(Player p, int count) { events[0]++; }
+            @Override public void characterIncome(Player p, Character c, int amount, int total) { events[0]++; }
+            @Override public void districtDestroyed(Player w, Player v, DistrictCard card) { events[0]++; }
+            @Override public void crownPassed(Player p) { events[0]++; }
+        };
+        Game g = new Game(GameConfig.builder().playerCount(4).seed(21L).listener(counter).build());
+        events[0] = 0;
+        File file = File.createTempFile("journal", ".bin");
+        EventJournal journal = EventJournal.attach(g, file, 16);
+        Map<Integer, String> live = new HashMap<>();
+        while (!g.isFinished()) {
+            g.processT();
+            live.put(events[0] - 1, position(g));
+        }
+        journal.close();
+
+        JournalReplay replay = JournalReplay.open(file);
+        assertEquals(events[0], replay.eventCount());
+        for (Map.Entry<Integer, String> e : live.entrySet()) {
+            if (e.getKey() % 7 == 0 || e.getKey() == events[0] - 1) {
+                assertEquals(e.getValue(), position(replay.gameAt(e.getKey())), "event " + e.getKey());
+            }
+        }
+        assertTrue(replay.finalGame().isFinished());
+        file.delete();
+    }
+
+    @Test
+    void testForkIsIndependentAndHeadless() {
+        Game g = new Game(GameConfig.builder().playerCount(5).seed(3L).console(true).build());
+        PrintStream orig = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            for (int i = 0; i < 25; i++) g.processT();
+            String before = position(g);
+            int deck = g.getDeck().size();
+            out.reset();
+
+            Game a = g.fork(99L), b = g.fork(99L);
+            assertEquals(before, position(a));
+            while (!a.isFinished()) a.processT();
+            while (!b.isFinished()) b.processT();
+            assertEquals(position(a), position(b));
+            assertEquals(before, position(g));
+            assertEquals(deck, g.getDeck().size());
+            assertEquals("", out.toString());
+        } finally {
+            System.setOut(orig);
+        }
+    }
+
+    @Test
+    void testMctsPlayerFinishesGameWithinBudget() {
+        MctsPlayer mcts = new MctsPlayer(1, 50, 48, 2);
+        Game g = new Game(GameConfig.builder().addPlayer(mcts).playerCount(4).seed(8L).build());
+        for (int i = 0; i < 12; i++) g.processT();
+
+        Game view = g.rolloutFork(1L, 0);
+        assertEquals(g.getPlayers().get(0).getHandCards(), view.getPlayers().get(0).getHandCards());
+        int cards = g.getDeck().size(), seen = view.getDeck().size();
+        for (int s = 1; s < 4; s++) {
+            assertEquals(g.getPlayers().get(s).getHandSize(), view.getPlayers().get(s).getHandSize());
+            cards += g.getPlayers().get(s).getHandSize();
+            seen  += view.getPlayers().get(s).getHandSize();
+            assertFalse(view.getPlayers().get(s) instanceof MctsPlayer);
+        }
+        assertEquals(cards, seen);
+
+        while (!g.isFinished()) g.processT();
+        assertTrue(mcts.getDecisions() > 0);
+        assertTrue(mcts.playoutsPerSecond() > 0);
+        assertThrows(IllegalArgumentException.class, () -> new MctsPlayer(2, 0, 10, 1));
+    }
+
+    @Test
+    void testZobristHashAndTranspositionTable() throws IOException {
+        Game g = new Game(GameConfig.builder().playerCount(4).seed(3L).build());
+        Game same = new Game(GameConfig.builder().playerCount(4).seed(3L).build());
+        for (int i = 0; i < 15; i++) {
+            g.processT();
+            same.processT();
+        }
+        assertEquals(g.hash(), same.hash());
+        assertEquals(g.hash(), g.fork().hash());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        g.writeSnapshot(new DataOutputStream(bytes));
+        Game r = Game.readFrom(new DataInputStream(
+            new ByteArrayInputStream(bytes.toByteArray())), GameEventListener.NO_OP);
+        assertEquals(g.hash(), r.hash());
+
+        long before = g.hash();
+        Player p = g.getPlayers().get(0);
+        p.hand.add(g.getDeck().draw());
+        assertNotEquals(before, g.hash());
+        p.hand.remove(p.hand.size() - 1);
+        assertEquals(before, g.hash());
+        g.processT();
+        assertNotEquals(before, g.hash());
+
+        TranspositionTable table = new TranspositionTable(4);
+        double[] reward = new double[1];
+        assertEquals(0, table.lookup(1L, reward, 0));
+        table.add(1L, 0.5, 2);
+        table.add(1L, 1.0, 1);
+        assertEquals(3, table.lookup(1L, reward, 0));
+        assertEquals(1.5, reward[0], 1e-9);
+        for (long k = 2; k <= 4; k++) table.add(k, 1.0, 5);
+        table.add(5L, 1.0, 1);          // bucket full: evicts key 1, the least visited
+        assertEquals(0, table.lookup(1L, reward, 0));
+        assertEquals(1, table.lookup(5L, reward, 0));
+
+        TranspositionTable shared = new TranspositionTable(1 << 12);
+        MctsPlayer a = new MctsPlayer(1, 50, 24, 1);
+        MctsPlayer b = new MctsPlayer(2, 50, 24, 1);
+        a.setTranspositionTable(shared);
+        b.setTranspositionTable(shared);
+        Game m = new Game(GameConfig.builder().addPlayer(a).addPlayer(b).playerCount(4)
+                                    .seed(4L).build());
+        while (!m.isFinished()) m.processT();
+        assertTrue(a.getDecisions() + b.getDecisions() > 0);
+    }
+
+    @Test
+    void testBitmaskDraftNeverShowsKingAndDealsEveryCharacter() {
+        int mask = CharacterMask.bit(Character.THIEF) | CharacterMask.bit(Character.WARLORD);
+        assertEquals(Arrays.asList(Character.THIEF, Character.WARLORD), CharacterMask.list(mask));
+        assertEquals(CharacterMask.bit(Character.WARLORD), CharacterMask.pick(mask, 1));
+        assertSame(CharacterMask.list(mask), CharacterMask.list(mask));
+        assertNull(CharacterMask.single(0));
+
+        for (int players = 4; players <= 7; players++) {
+            for (long seed = 0; seed < 50; seed++) {
+                List<Character> shown = new ArrayList<>();
+                GameEventListener l = new GameEventListener() {
+                    @Override public void characterDiscarded(Character c) { shown.add(c); }
+                };
+                Game g = new Game(GameConfig.builder().playerCount(players).seed(seed)
+                                            .listener(l).build());
+                while (g.getPhase() == Game.Phase.SELECTION) g.processT();
+                assertFalse(shown.contains(Character.KING));
+                assertEquals(players == 4 || players == 6 ? 2 : 1, shown.size());
+                Set<Character> held = new HashSet<>();
+                for (Player p : g.getPlayers()) {
+                    Character c = g.getCharacter(p);
+                    assertTrue(held.add(c));
+                    // With too few characters left the last seat is offered the discards
+                    if (players + shown.size() < 8) assertFalse(shown.contains(c));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testHandIndexMatchesLinearScan() {
+        CardCatalog catalog = CardCatalog.standard();
+        CardList hand = new CardList(Zobrist.HAND, 1);
+        Random r = new Random(9);
+        for (int step = 0; step < 3000; step++) {
+            int op = r.nextInt(5);
+            DistrictCard d = catalog.get(r.nextInt(catalog.size()));
+            if (op <= 1 || hand.isEmpty())  hand.add(r.nextInt(hand.size() + 1), d);
+            else if (op == 2)               hand.set(r.nextInt(hand.size()), d);
+            else if (op == 3)               hand.remove(r.nextInt(hand.size()));
+            else                            hand.removeUnordered(r.nextInt(hand.size()));
+
+            int gold = r.nextInt(8);
+            Color color = Color.values()[r.nextInt(Color.values().length)];
+            int best = -1, bestOfColor = -1, cheap = -1, cheapOfColor = -1;
+            for (int i = 0; i < hand.size(); i++) {
+                int cost = hand.get(i).getCost();
+                boolean ofColor = hand.get(i).getColor() == color;
+                if (cost <= gold && (best < 0 || cost > hand.get(best).getCost())) best = i;
+                if (cheap < 0 || cost < hand.get(cheap).getCost()) cheap = i;
+                if (ofColor && cost <= gold
+                    && (bestOfColor < 0 || cost > hand.get(bestOfColor).getCost())) bestOfColor = i;
+                if (ofColor && (cheapOfColor < 0 || cost < hand.get(cheapOfColor).getCost())) cheapOfColor = i;
+            }
+            assertEquals(best, hand.bestAffordable(gold));
+            assertEquals(bestOfColor, hand.bestAffordable(color, gold));
+            assertEquals(cheap, hand.cheapest());
+            assertEquals(cheapOfColor, hand.cheapest(color));
+            assertEquals(new ArrayList<>(hand).indexOf(d), hand.indexOf(d));
+        }
+        CardList copy = new CardList(Zobrist.HAND, 1, hand);
+        assertEquals(hand, copy);
+        assertEquals(hand.bestAffordable(4), copy.bestAffordable(4));
+        assertThrows(IllegalArgumentException.class,
+            () -> new DistrictCard("Huge", Color.RED, DistrictCard.MAX_COST + 1, ""));
+    }
+
+    @Test
+    void testCharacterAbilities() throws Exception {
+        CardCatalog catalog = CardCatalog.standard();
+        Game g = new Game(GameConfig.builder().playerCount(4).seed(2L).build());
+        while (g.getPhase() == Game.Phase.SELECTION) g.processT();
+        Player a = g.getPlayers().get(0), b = g.getPlayers().get(1);
+
+        assertFalse(g.kill(a, Character.ASSASSIN));
+        assertTrue(g.kill(a, Character.KING));
+        assertFalse(g.rob(b, Character.KING));
+        assertFalse(g.rob(b, Character.THIEF));
+        assertTrue(g.rob(b, Character.MERCHANT));
+
+        List<DistrictCard> handA = new ArrayList<>(a.getHandCards());
+        List<DistrictCard> handB = new ArrayList<>(b.getHandCards());
+        long hash = g.hash();
+        assertTrue(g.swapHands(a, b));
+        assertEquals(handB, a.getHandCards());
+        assertEquals(handA, b.getHandCards());
+        assertTrue(g.swapHands(a, b));
+        assertEquals(hash, g.hash());
+
+        int size = a.getHandSize();
+        assertFalse(g.redraw(a, 0));
+        assertTrue(g.redraw(a, 0b11));
+        assertEquals(size, a.getHandSize());
+
+        b.getHandCards().add(catalog.byName("Temple"));
+        b.getHandCards().add(catalog.byName("Watchtower"));
+        b.addGold(10);
+        ((AIPlayer) b).buildIndex(b.getHandSize());
+        ((AIPlayer) b).buildIndex(b.getHandSize());
+        int gold = a.getGold(), value = b.getCityValue();
+        assertFalse(g.destroy(a, b, 5));
+        assertTrue(g.destroy(a, b, 0));
+        assertEquals(gold, a.getGold());
+        assertEquals(1, b.getCitySize());
+        assertEquals(value - 1, b.getCityValue());
+        assertEquals(0, b.countBuilt(Color.RED));
+        assertEquals(1, b.countBuilt(Color.BLUE));
+        assertEquals(1 << Color.BLUE.ordinal(), b.getColorMask());
+
+        // Abilities take effect in real games
+        int[] seen = new int[4];
+        GameEventListener l = new GameEventListener() {
+            @Override public void turnLost(int rank, Character c, Player owner) { seen[0]++; }
+            @Override public void goldStolen(Player t, Player v, int amount) { seen[1]++; }
+            @Override public void characterIncome(Player p, Character c, int amount, int total) { seen[2]++; }
+            @Override public void districtDestroyed(Player w, Player v, DistrictCard card) { seen[3]++; }
+        };
+        for (long seed = 0; seed < 50; seed++) {
+            Game h = new Game(GameConfig.builder().playerCount(5).seed(seed).listener(l).build());
+            while (!h.isFinished()) h.processT();
+        }
+        for (int n : seen) assertTrue(n > 0);
+    }
+
+    @Test
+    void testSeededGamesAreReproducible() {
+        TournamentStats a = new Tournament(5, 42L).run(150, 1);
+        TournamentStats b = new Tournament(5, 42L).run(150, 3);
+        assertEquals(a.toString(), b.toString());
+
+        // Game i+1 must not start on game i's stream one draw later
+        Tournament t = new Tournament(4, 42L);
+        SplitMix64 first = new SplitMix64(t.gameSeed(0));
+        for (int draws = 0; draws < 1000; draws++) {
+            first.nextLong();
+            assertNotEquals(t.gameSeed(1), first.getState());
+        }
+
+        Game g1 = new Game(GameConfig.builder().playerCount(4).seed(7L).build());
+        Game g2 = new Game(GameConfig.builder().playerCount(4).seed(7L).build());
+        while (!g1.isFinished()) g1.processT();
+        while (!g2.isFinished()) g2.processT();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(g1.getPlayers().get(i).getBuiltDistricts().toString(),
+                         g2.getPlayers().get(i).getBuiltDistricts().toString());
+        }
+    }
+
+    @Test
+    void testGameServerHostsTables() throws Exception {
+        try (GameServer server = GameServer.start(0)) {
+            try (java.net.Socket a = new java.net.Socket("127.0.0.1", server.getPort());
+                 java.net.Socket b = new java.net.Socket("127.0.0.1", server.getPort())) {
+                PrintWriter out = new PrintWriter(a.getOutputStream(), true);
+                BufferedReader in = new BufferedReader(new InputStreamReader(a.getInputStream(), "UTF-8"));
+                out.println("4");
+                String line;
+                while ((line = in.readLine()) != null && !line.contains("Starting Citadels")) { }
+                assertNotNull(line);
+                assertTrue(line.contains("with 4 players"));
+                assertTrue(b.isConnected());    // a second table, left idle
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while ((server.openTables() > 0 || server.acceptedTables() < 2)
+                   && System.currentTimeMillis() < deadline) Thread.sleep(10);
+            assertEquals(0, server.openTables());
+            assertEquals(2, server.acceptedTables());
+        }
+    }
+
+    @Test
+    void testConsoleGameAndProcessorShareStdin() {
+        System.setIn(new ByteArrayInputStream("4\n\nt\n".getBytes()));   // a blank line shows help
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(buf, true));
+        Game g;
+        try {
+            g = new Game();
+            new CommandProcessor(g).run();
+        } finally {
+            System.setOut(console);
+        }
+        assertEquals(4, g.getPlayers().size());
+        assertTrue(buf.toString().contains("Available commands"));
+    }
+
+    @Test
+    void testPromptsWaitForAnswers() {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buf, true);
+        Game[] games = { new Game(out), new Game(out) };
+        CommandProcessor[] cps = new CommandProcessor[2];
+        for (int i = 0; i < 2; i++) {
+            assertEquals(Game.Prompt.PLAYER_COUNT, games[i].getPrompt());
+            cps[i] = new CommandProcessor(games[i], () -> null, out);
+            cps[i].execute("9");
+            assertEquals(Game.Prompt.PLAYER_COUNT, games[i].getPrompt());
+            cps[i].execute(String.valueOf(4 + i));
+            assertEquals(Game.Prompt.NONE, games[i].getPrompt());
+            assertEquals(4 + i, games[i].getPlayers().size());
+        }
+
+        // Both games on this thread, the human always drawing cards
+        int choices = 0;
+        for (int step = 0; step < 100_000 && !(games[0].isFinished() && games[1].isFinished()); step++) {
+            for (int i = 0; i < 2; i++) {
+                Game g = games[i];
+                if (g.isFinished()) continue;
+                if (g.getPrompt() == Game.Prompt.CARD_CHOICE) {
+                    int hand = g.getHuman().getHandSize();
+                    cps[i].execute("t");
+                    assertEquals(Game.Prompt.CARD_CHOICE, g.getPrompt());
+                    cps[i].execute("2");
+                    assertEquals(hand + 1, g.getHuman().getHandSize());
+                    assertTrue(g.isIncomeTaken());
+                    choices++;
+                } else if (g.getPhase() == Game.Phase.TURN && g.getCurrentPlayer() instanceof HumanPlayer
+                           && !g.isIncomeTaken()) {
+                    cps[i].execute("income cards");
+                    if (g.getPrompt() == Game.Prompt.NONE && !g.isIncomeTaken()) cps[i].execute("t");
+                } else {
+                    int before = buf.size();
+                    cps[i].execute("t");
+                    String o = buf.toString().substring(before);
+                    int a = o.lastIndexOf("Available characters: ");
+                    if (a >= 0) cps[i].execute(o.substring(a + 22).split("[,\\s]")[0]);
+                }
+            }
+        }
+        assertTrue(games[0].isFinished() && games[1].isFinished());
+        assertTrue(choices > 0);
+    }
+
+    @Test
+    void testFastForwardStopsForHuman() {
+        PrintStream out = new PrintStream(new ByteArrayOutputStream(), true);
+        int humanTurns = 0;
+        for (int rep = 0; rep < 20; rep++) {
+            Game g = new Game(out);
+            g.answer("5");
+            while (!g.isFinished()) {
+                g.fastForward(false);
+                if (g.isFinished()) break;
+                assertTrue(g.awaitingHuman());
+                assertEquals(0, g.fastForward(false));
+                if (g.getPhase() == Game.Phase.SELECTION) {
+                    for (Character c : Character.values()) {
+                        if (g.getPhase() != Game.Phase.SELECTION || !g.awaitingHuman()) break;
+                        g.chooseCharacter(c.name());
+                    }
+                } else {
+                    assertTrue(g.getCurrentPlayer() instanceof HumanPlayer);
+                    humanTurns++;
+                    g.humanTakeGoldIncome();
+                    g.pressT();
+                }
+            }
+        }
+        assertTrue(humanTurns > 0);
+
+        Game g = new Game(out);
+        g.answer("4");
+        g.fastForward(true);
+        assertTrue(g.isFinished());
+        assertNull(g.getHuman());
+    }
+
+    @Test
+    void testRefusedBuildKeepsTheBuild() {
+        Game g = new Game(GameConfig.builder().addPlayer(new HumanPlayer(1))
+            .playerCount(4).seed(3L).listener(GameEventListener.NO_OP).build());
+        g.setOutput(new PrintStream(new ByteArrayOutputStream(), true));
+        while (!(g.getCurrentPlayer() instanceof HumanPlayer)) {
+            g.fastForward(false);
+            for (Character c : Character.values()) {
+                if (g.getPhase() == Game.Phase.SELECTION && g.awaitingHuman()) g.chooseCharacter(c.name());
+            }
+        }
+        g.humanTakeGoldIncome();
+        g.humanBuild(99);
+        assertFalse(g.hasBuiltThisTurn());
+        g.getHuman().addGold(100);
+        g.humanBuild(1);
+        assertTrue(g.hasBuiltThisTurn());
+    }
+
+    @Test
+    void testTokensAndCommandTable() {
+        Tokens t = new Tokens().reset("  Info\tWishing   Well ");
+        assertEquals(3, t.count());
+        assertTrue(t.is(0, "info"));
+        assertEquals("Wishing   Well", t.rest(1));
+        assertEquals(Tokens.NOT_A_NUMBER, t.number(1));
+        assertEquals(0, new Tokens().reset("").count());
+
+        t.reset("build 12 -1 x9 9999999999 KiNg");
+        assertEquals(12, t.number(1));
+        assertEquals(Tokens.NOT_A_NUMBER, t.number(2));
+        assertEquals(Tokens.NOT_A_NUMBER, t.number(3));
+        assertEquals(Tokens.NOT_A_NUMBER, t.number(4));
+        assertEquals(Character.KING, t.character(5));
+        assertNull(t.character(1));
+        assertEquals(Character.WARLORD, Character.byName("warlord"));
+        assertNull(Character.byName("warlords"));
+        assertEquals(5, Tokens.number(" 5\n"));
+
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buf, true);
+        Game g = new Game(out);
+        CommandProcessor p = new CommandProcessor(g, () -> null, out);
+        p.execute("4");
+        StringBuilder seen = new StringBuilder();
+        p.register(a -> seen.append(a.count()).append(a.rest(1)), "echo", "say");
+        p.execute("say a");
+        assertEquals("", seen.toString());      // a character name while picking
+        while (g.getPhase() == Game.Phase.SELECTION) {
+            g.fastForward(false);
+            for (Character c : Character.values()) {
+                if (g.getPhase() == Game.Phase.SELECTION && g.awaitingHuman()) p.execute(c.name());
+            }
+        }
+        p.execute("SAY  a  b ");
+        assertEquals("3a  b", seen.toString());
+        buf.reset();
+        p.execute("info 1 2 3");
+        assertTrue(buf.toString().contains("Unknown card: 1 2 3"));
+
+        p.unregister(GameServer.HOST_COMMANDS);
+        buf.reset();
+        p.execute("DEBUG");
+        assertTrue(buf.toString().contains("Unknown command."));
+    }
+
+    @Test
+    void testScriptRunnerReplaysIdentically() throws IOException {
+        String script = "# session\n\nt\n  \nff\nscore\nff end\nscore\n";
+        String[] outputs = new String[2];
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            ScriptRunner r = new ScriptRunner(5, 99L, new PrintStream(buf, true));
+            int n = r.run(InputSource.of(new BufferedReader(new StringReader(script))));
+            assertEquals(4, n);            // blank, comment and post-game lines skipped
+            assertTrue(r.getGame().isFinished());
+            outputs[i] = buf.toString();
+            ByteArrayOutputStream report = new ByteArrayOutputStream();
+            r.report(new PrintStream(report, true));
+            assertTrue(report.toString().startsWith("4 commands in"));
+        }
+        assertEquals(outputs[0], outputs[1]);
+        assertFalse(outputs[0].startsWith("> ") || outputs[0].contains("\n> "));
+        assertFalse(outputs[0].contains("Available commands"));
+    }
+
 }
 
 
@@ -0,0 +1,100 @@
+package citadels;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Runs a script of console commands against a seeded game, with no
+ * prompts and no one at the keyboard, e.g. to replay recorded sessions as
+ * regression or load tests.
+ * <p>
+ * Each line goes straight to {@link CommandProcessor#execute}; blank lines
+ * and lines starting with {@code #} are skipped rather than answered with
+ * help. Output is written only to the given stream, which should be
+ * buffered, and the time each command took is kept for
+ * {@link #report}.
+ */
+public final class ScriptRunner {
+    private final Game game;
+    private final CommandProcessor processor;
+
+    /** Nanoseconds each command took, in order. */
+    private long[] latencies = new long[1024];
+    private int commands;
+
+    /**
+     * Seat a human as player 1 against AIs in a seeded game.
+     * @param players player count [4-7]
+     * @param seed game seed; the same seed and script replay identically
+     * @param out where game messages and events are written
+     * @throws IllegalArgumentException if the player count is out of range
+     */
+    public ScriptRunner(int players, long seed, PrintStream out) {
+        this.game = new Game(GameConfig.builder()
+            .addPlayer(new HumanPlayer(1))
+            .playerCount(players)
+            .seed(seed)
+            .listener(new ConsoleRenderer(out))
+            .build());
+        game.setOutput(out);
+        this.processor = new CommandProcessor(game, () -> null, out);
+    }
+
+    /** @return the game the script drives */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Execute every line of a script, stopping early if the game ends.
+     * @param script command lines
+     * @return number of commands executed
+     * @throws IOException if reading the script fails
+     */
+    public int run(InputSource script) throws IOException {
+        String line;
+        while (!game.isFinished() && (line = script.nextLine()) != null) {
+            if (isSkipped(line)) continue;
+            long t0 = System.nanoTime();
+            processor.execute(line);
+            long t = System.nanoTime() - t0;
+            if (commands == latencies.length) latencies = Arrays.copyOf(latencies, commands * 2);
+            latencies[commands++] = t;
+        }
+        return commands;
+    }
+
+    /** @return true for a blank or comment line */
+    private static boolean isSkipped(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (ch > ' ') return ch == '#';
+        }
+        return true;
+    }
+
+    /**
+     * Print the number of commands, their total time and latency
+     * percentiles.
+     * @param out destination
+     */
+    public void report(PrintStream out) {
+        long[] sorted = Arrays.copyOf(latencies, commands);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long t : sorted) total += t;
+        out.printf("%d commands in %.1f ms%s%n", commands, total / 1e6,
+                   game.isFinished() ? " (game over)" : "");
+        if (commands == 0) return;
+        out.printf("latency us: p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                   percentile(sorted, 0.50) / 1e3, percentile(sorted, 0.90) / 1e3,
+                   percentile(sorted, 0.99) / 1e3, percentile(sorted, 0.999) / 1e3,
+                   sorted[commands - 1] / 1e3);
+    }
+
+    /** @return the value at fraction q of a sorted, non-empty array */
+    private static long percentile(long[] sorted, double q) {
+        return sorted[Math.min(sorted.length - 1, (int) (q * sorted.length))];
+    }
+}
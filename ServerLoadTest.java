@@ -0,0 +1,154 @@
+package citadels;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Localhost load test for {@link GameServer}: opens idle tables that only
+ * give a player count, plus active tables whose clients play whole games
+ * (first available character, gold income, build the first card), all in
+ * one JVM, and reports commands per second, round-trip latency and heap.
+ * <p>
+ * Each table holds two sockets in this process, so the defaults need a
+ * file descriptor limit above 22,000 ({@code ulimit -n}).
+ */
+public final class ServerLoadTest {
+    /** Text that ends every command's reply. */
+    private static final byte[] PROMPT = "> ".getBytes(StandardCharsets.US_ASCII);
+
+    private ServerLoadTest() { }
+
+    /**
+     * @param args [idle tables] [active tables] [games per active table]
+     * @throws Exception if the server cannot start or a socket fails to open
+     */
+    public static void main(String[] args) throws Exception {
+        int idle   = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int active = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int games  = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+        try (GameServer server = GameServer.start(0)) {
+            InetSocketAddress addr = new InetSocketAddress("127.0.0.1", server.getPort());
+            List<SocketChannel> idlers = new ArrayList<>(idle);
+            for (int i = 0; i < idle; i++) {
+                SocketChannel ch = SocketChannel.open(addr);
+                ch.write(java.nio.ByteBuffer.wrap("4\n".getBytes(StandardCharsets.US_ASCII)));
+                idlers.add(ch);
+            }
+            while (server.openTables() < idle) Thread.sleep(10);
+            System.out.printf("%d idle tables open%n", server.openTables());
+
+            AtomicLong commands = new AtomicLong();
+            AtomicInteger finished = new AtomicInteger(), failed = new AtomicInteger();
+            long[][] latencies = new long[active][];
+            long start = System.nanoTime();
+            ExecutorService clients = GameServer.newSessionExecutor();
+            for (int t = 0; t < active; t++) {
+                int table = t;
+                clients.execute(() -> {
+                    try {
+                        latencies[table] = play(addr, games, commands);
+                        finished.incrementAndGet();
+                    } catch (IOException e) {
+                        failed.incrementAndGet();
+                    }
+                });
+            }
+            long peakOpen = 0;
+            clients.shutdown();
+            while (!clients.awaitTermination(100, TimeUnit.MILLISECONDS)) {
+                peakOpen = Math.max(peakOpen, server.openTables());
+            }
+            double secs = (System.nanoTime() - start) / 1e9;
+
+            Runtime rt = Runtime.getRuntime();
+            rt.gc();
+            long heap = rt.totalMemory() - rt.freeMemory();
+            long[] all = Arrays.stream(latencies).filter(l -> l != null)
+                               .flatMapToLong(Arrays::stream).sorted().toArray();
+            System.out.printf("%d active tables (peak %d tables open): %d games finished, %d failed%n",
+                              active, peakOpen, finished.get() * games, failed.get());
+            System.out.printf("%d commands in %.1f s = %.0f commands/sec%n",
+                              commands.get(), secs, commands.get() / secs);
+            if (all.length > 0) {
+                System.out.printf("round trip: p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                                  all[all.length / 2] / 1e6, all[(int) (all.length * 0.99)] / 1e6,
+                                  all[all.length - 1] / 1e6);
+            }
+            System.out.printf("heap in use with %d idle tables: %.0f MB (%.1f KB per table)%n",
+                              server.openTables(), heap / 1e6, heap / 1e3 / Math.max(1, server.openTables()));
+            for (SocketChannel ch : idlers) ch.close();
+        }
+    }
+
+    /**
+     * Play whole games at one table, answering each reply as a person would.
+     * @return round-trip time of every command, in nanoseconds
+     */
+    private static long[] play(InetSocketAddress addr, int games, AtomicLong commands)
+            throws IOException {
+        long[] times = new long[1024];
+        int n = 0;
+        for (int g = 0; g < games; g++) {
+            try (SocketChannel ch = SocketChannel.open(addr)) {
+                InputStream in = Channels.newInputStream(ch);
+                OutputStream out = Channels.newOutputStream(ch);
+                String reply = send(in, out, "4");
+                int step = 0;
+                while (reply != null && !reply.contains("GAME OVER")) {
+                    String cmd;
+                    int avail = reply.lastIndexOf("Available characters: ");
+                    if (avail >= 0) {
+                        int from = avail + "Available characters: ".length();
+                        int to = from;
+                        while (to < reply.length() && java.lang.Character.isLetter(reply.charAt(to))) to++;
+                        cmd = reply.substring(from, to);
+                    } else if (reply.contains("Your turn.") || step > 0) {
+                        cmd = step == 0 ? "income gold" : step == 1 ? "build 1" : "end";
+                        step = (step + 1) % 3;
+                    } else {
+                        cmd = "t";
+                    }
+                    long t0 = System.nanoTime();
+                    reply = send(in, out, cmd);
+                    if (n == times.length) times = Arrays.copyOf(times, n * 2);
+                    times[n++] = System.nanoTime() - t0;
+                    commands.incrementAndGet();
+                }
+            }
+        }
+        return Arrays.copyOf(times, n);
+    }
+
+    /**
+     * Send one line and read the reply up to the next prompt.
+     * @return the reply, or null if the server closed the connection
+     */
+    private static String send(InputStream in, OutputStream out, String line) throws IOException {
+        out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        byte[] buf = new byte[512];
+        int len = 0;
+        while (true) {
+            int b = in.read();
+            if (b < 0) return len == 0 ? null : new String(buf, 0, len, StandardCharsets.UTF_8);
+            if (len == buf.length) buf = Arrays.copyOf(buf, len * 2);
+            buf[len++] = (byte) b;
+            if (len >= PROMPT.length && buf[len - 2] == PROMPT[0] && buf[len - 1] == PROMPT[1]
+                && (len == 2 || buf[len - 3] == '\n')) {
+                return new String(buf, 0, len, StandardCharsets.UTF_8);
+            }
+        }
+    }
+}
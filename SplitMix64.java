@@ -0,0 +1,82 @@
+package citadels;
+
+import java.io.Serializable;
+import java.util.SplittableRandom;
+
+/**
+ * A game's random generator: SplitMix64, the algorithm behind
+ * {@link SplittableRandom}, with its whole state in one long.
+ * <p>
+ * Unlike SplittableRandom, the state can be read and restored, so a
+ * snapshot records the generator without drawing from it: saving a game
+ * never changes what it plays next. Seeded games therefore play the same
+ * with or without autosave or a journal, whatever their snapshot interval.
+ */
+public final class SplitMix64 implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Added to the state at every step: the odd 64-bit golden ratio. */
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    /** A generator with an unpredictable seed. */
+    public SplitMix64() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * @param seed initial state; the same seed gives the same numbers
+     */
+    public SplitMix64(long seed) {
+        this.state = seed;
+    }
+
+    /** @return the whole state, for {@link #setState} or {@link #SplitMix64(long)} */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Restore a state read with {@link #getState}.
+     * @param state the state
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    /** @return a pseudo-random long */
+    public long nextLong() {
+        long z = state += GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @param bound upper bound, exclusive
+     * @return a pseudo-random int in [0, bound), without modulo bias
+     * @throws IllegalArgumentException if bound is not positive
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) throw new IllegalArgumentException("bound must be positive");
+        int r = (int) (nextLong() >>> 33);
+        int m = bound - 1;
+        if ((bound & m) == 0) return r & m;
+        for (int u = r; u - (r = u % bound) + m < 0; u = (int) (nextLong() >>> 33)) { }
+        return r;
+    }
+
+    /** @return a pseudo-random boolean */
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    /**
+     * @return a new generator seeded from this one's stream, for an
+     *         independent copy of the game such as a fork
+     */
+    public SplitMix64 split() {
+        return new SplitMix64(nextLong());
+    }
+}
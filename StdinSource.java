@@ -0,0 +1,27 @@
+package citadels;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+/**
+ * {@link InputSource#STDIN}: one buffered reader over System.in, shared by
+ * every game and command processor in the process, so bytes read ahead
+ * for one prompt are still there for the next reader. The reader is
+ * created on first use, and again only if System.setIn replaces the
+ * stream.
+ */
+final class StdinSource implements InputSource {
+    private InputStream stream;
+    private BufferedReader reader;
+
+    @Override
+    public synchronized String nextLine() throws IOException {
+        if (reader == null || stream != System.in) {
+            stream = System.in;
+            reader = new BufferedReader(new InputStreamReader(stream));
+        }
+        return reader.readLine();
+    }
+}
@@ -0,0 +1,115 @@
+package citadels;
+
+import java.util.Arrays;
+
+/**
+ * A command line split into words at whitespace, for {@link CommandProcessor}.
+ * <p>
+ * Words are kept as offsets into the line and compared and parsed in
+ * place, so reading a command neither compiles a regex nor copies words
+ * nor throws on bad input. One instance is reused for every line.
+ */
+public final class Tokens {
+    /** Returned by {@link #number} for a word that is not a number. */
+    public static final int NOT_A_NUMBER = -1;
+
+    /** Digits beyond this many would overflow an int. */
+    private static final int MAX_DIGITS = 9;
+
+    private String line = "";
+    private int count;
+    private int[] start = new int[8];
+    private int[] end   = new int[8];
+
+    /**
+     * Split a new line into words.
+     * @param line the line
+     * @return this
+     */
+    Tokens reset(String line) {
+        this.line = line;
+        count = 0;
+        int i = 0, n = line.length();
+        while (true) {
+            while (i < n && line.charAt(i) <= ' ') i++;
+            if (i == n) return this;
+            if (count == start.length) {
+                start = Arrays.copyOf(start, count * 2);
+                end   = Arrays.copyOf(end, count * 2);
+            }
+            start[count] = i;
+            while (i < n && line.charAt(i) > ' ') i++;
+            end[count++] = i;
+        }
+    }
+
+    /** @return number of words */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @param i word index
+     * @return the word
+     */
+    public String word(int i) {
+        return line.substring(start[i], end[i]);
+    }
+
+    /**
+     * @param i word index
+     * @return the line from word i to the last word, e.g. a card name
+     */
+    public String rest(int i) {
+        return line.substring(start[i], end[count - 1]);
+    }
+
+    /**
+     * @param i word index
+     * @param word word to compare with, ignoring case
+     * @return true if word i is that word
+     */
+    public boolean is(int i, String word) {
+        int len = end[i] - start[i];
+        return len == word.length() && line.regionMatches(true, start[i], word, 0, len);
+    }
+
+    /**
+     * @param i word index
+     * @return word i as a non-negative decimal number, or NOT_A_NUMBER
+     */
+    public int number(int i) {
+        return number(line, start[i], end[i]);
+    }
+
+    /**
+     * @param i word index
+     * @return the character word i names, ignoring case, or null
+     */
+    public Character character(int i) {
+        return Character.byName(line, start[i], end[i]);
+    }
+
+    /**
+     * Parse a whole string as a number, ignoring surrounding whitespace.
+     * @param s the string
+     * @return s as a non-negative decimal number, or NOT_A_NUMBER
+     */
+    static int number(String s) {
+        int from = 0, to = s.length();
+        while (from < to && s.charAt(from) <= ' ') from++;
+        while (to > from && s.charAt(to - 1) <= ' ') to--;
+        return number(s, from, to);
+    }
+
+    private static int number(String s, int from, int to) {
+        if (from == to || to - from > MAX_DIGITS) return NOT_A_NUMBER;
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) return NOT_A_NUMBER;
+            n = n * 10 + d;
+        }
+        return n;
+    }
+}
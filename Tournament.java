@@ -0,0 +1,137 @@
+package citadels;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs many independent AI-only games across all cores.
+ * <p>
+ * Games are split into ranges on a work-stealing {@link ForkJoinPool}. Each
+ * leaf task plays its range into its own {@link TournamentStats}, and results
+ * are merged on join, so workers never share mutable state. Game {@code i}
+ * is seeded from the tournament seed and {@code i} alone, so results do not
+ * depend on the thread count or on which worker played the game. A game
+ * still running after {@link Game#MAX_STEPS} steps is abandoned and counted
+ * as unfinished rather than allowed to hang its worker.
+ */
+public class Tournament {
+    /** Games played by one leaf task before it stops splitting. */
+    private static final int GRAIN = 64;
+
+    private final int playerCount;
+    private final long seed;
+
+    /**
+     * Create a tournament of AI-only games with a random seed.
+     * @param playerCount seats per game [4-7]
+     */
+    public Tournament(int playerCount) {
+        this(playerCount, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Create a reproducible tournament of AI-only games.
+     * @param playerCount seats per game [4-7]
+     * @param seed base seed; game i uses a seed derived from it and i
+     */
+    public Tournament(int playerCount, long seed) {
+        if (playerCount < GameConfig.MIN_PLAYERS || playerCount > GameConfig.MAX_PLAYERS) {
+            throw new IllegalArgumentException("Player count must be "
+                + GameConfig.MIN_PLAYERS + "-" + GameConfig.MAX_PLAYERS + ": " + playerCount);
+        }
+        this.playerCount = playerCount;
+        this.seed        = seed;
+    }
+
+    /**
+     * Play {@code games} games on a pool of {@code threads} workers.
+     * @param games number of games
+     * @param threads parallelism of the pool
+     * @return merged statistics
+     */
+    public TournamentStats run(int games, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new Batch(0, games));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Play one headless game to the end, or until the step cap.
+     * @param index game number within the tournament
+     * @return the game, finished unless it hit {@link Game#MAX_STEPS}
+     */
+    Game playOne(int index) {
+        Game g = new Game(GameConfig.builder()
+            .playerCount(playerCount)
+            .seed(gameSeed(index))
+            .build());
+        g.playOut(Game.MAX_STEPS);
+        return g;
+    }
+
+    /**
+     * Mix the tournament seed and a game number into that game's seed.
+     * Stepping the seed by a constant would start neighbouring games on
+     * overlapping streams of the same generator; mixing decorrelates them.
+     * @param index game number within the tournament
+     * @return the game's seed
+     */
+    long gameSeed(int index) {
+        return new SplitMix64(seed + index).nextLong();
+    }
+
+    /** Plays games [lo, hi), splitting while the range is large. */
+    private final class Batch extends RecursiveTask<TournamentStats> {
+        private static final long serialVersionUID = 1L;
+        private final int lo, hi;
+
+        Batch(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected TournamentStats compute() {
+            if (hi - lo <= GRAIN) {
+                TournamentStats stats = new TournamentStats(playerCount);
+                for (int i = lo; i < hi; i++) stats.record(playOne(i));
+                return stats;
+            }
+            int mid = (lo + hi) >>> 1;
+            Batch left = new Batch(lo, mid);
+            left.fork();
+            TournamentStats right = new Batch(mid, hi).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * Sweep thread counts 1, 2, 4, … up to the number of cores and print
+     * games/sec for each, followed by the aggregate statistics.
+     * @param args [games] [players] [seed], default 10000 games of 4 players
+     */
+    public static void main(String[] args) {
+        int games   = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        Tournament t = args.length > 2
+            ? new Tournament(players, Long.parseLong(args[2]))
+            : new Tournament(players);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        t.run(Math.min(games, 1_000), cores);   // warm-up
+        TournamentStats last = null;
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            long start = System.nanoTime();
+            last = t.run(games, threads);
+            double secs = (System.nanoTime() - start) / 1e9;
+            System.out.printf("threads=%-3d games=%d time=%.2fs games/sec=%.0f%n",
+                              threads, games, secs, games / secs);
+            if (threads == cores) break;
+        }
+        System.out.print(last);
+    }
+}
@@ -0,0 +1,105 @@
+package citadels;
+
+/**
+ * Aggregate results of a batch of games, per seat.
+ * <p>
+ * Not thread-safe: each worker fills its own instance and instances are
+ * combined with {@link #merge(TournamentStats)} once the workers finish.
+ */
+public final class TournamentStats {
+    private final int seats;
+    private long games;
+
+    /** Games abandoned at the step cap; not in games, wins or scores. */
+    private long unfinished;
+    private final long[] wins;
+    private final long[] scoreSum;
+
+    /**
+     * Create empty statistics.
+     * @param seats number of players per game
+     */
+    public TournamentStats(int seats) {
+        this.seats    = seats;
+        this.wins     = new long[seats];
+        this.scoreSum = new long[seats];
+    }
+
+    /**
+     * Record a game: its scores if it finished, otherwise only that it
+     * did not.
+     * @param game a game that has reached scoring or was abandoned
+     */
+    public void record(Game game) {
+        if (!game.isFinished()) {
+            unfinished++;
+            return;
+        }
+        GameResult result = game.getResult();
+        games++;
+        for (GameResult.PlayerScore s : result.getRanking()) {
+            scoreSum[s.getPlayerId() - 1] += s.getTotal();
+        }
+        wins[result.getWinner().getPlayerId() - 1]++;
+    }
+
+    /**
+     * Add another batch's results into this one.
+     * @param other results from a disjoint batch of games
+     * @return this, for chaining
+     */
+    public TournamentStats merge(TournamentStats other) {
+        games += other.games;
+        unfinished += other.unfinished;
+        for (int i = 0; i < seats; i++) {
+            wins[i]     += other.wins[i];
+            scoreSum[i] += other.scoreSum[i];
+        }
+        return this;
+    }
+
+    /** @return number of finished games recorded */
+    public long getGames() { return games; }
+
+    /** @return number of games abandoned at the step cap */
+    public long getUnfinished() { return unfinished; }
+
+    /**
+     * @param id player id (1-based seat)
+     * @return games won by that seat
+     */
+    public long getWins(int id) { return wins[id - 1]; }
+
+    /**
+     * @param id player id (1-based seat)
+     * @return fraction of games won by that seat
+     */
+    public double winRate(int id) {
+        return games == 0 ? 0 : (double) wins[id - 1] / games;
+    }
+
+    /**
+     * @param id player id (1-based seat)
+     * @return mean final score of that seat
+     */
+    public double meanScore(int id) {
+        return games == 0 ? 0 : (double) scoreSum[id - 1] / games;
+    }
+
+    /**
+     * Per-seat summary, one line per player.
+     * @return formatted table
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d games", games));
+        if (unfinished > 0) sb.append(String.format(" (%d more abandoned at the step cap)", unfinished));
+        sb.append(String.format("%n"));
+        for (int id = 1; id <= seats; id++) {
+            sb.append(String.format("  Player %d: wins=%d (%.1f%%), mean score=%.2f%n",
+                id, getWins(id), 100 * winRate(id), meanScore(id)));
+        }
+        return sb.toString();
+    }
+}
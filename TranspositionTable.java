@@ -0,0 +1,105 @@
+package citadels;
+
+/**
+ * A fixed-size table of search statistics keyed by 64-bit position hashes
+ * ({@link Game#hash()}), safe to share between search threads.
+ * <p>
+ * Each entry accumulates a visit count and a reward sum. Entries live in
+ * buckets of four slots. When a bucket is full, a new key replaces the
+ * least-visited entry, so the table never grows and keeps the results
+ * that took the most work. Buckets are guarded by a fixed set of lock
+ * stripes, so threads touching different stripes never contend.
+ */
+public final class TranspositionTable {
+    /** Slots per bucket. */
+    private static final int WAYS = 4;
+
+    /** Number of lock stripes; a power of two. */
+    private static final int STRIPES = 64;
+
+    private final long[] keys;
+    private final double[] rewards;
+    private final int[] visits;
+    private final int bucketMask;
+    private final Object[] locks = new Object[STRIPES];
+
+    /**
+     * @param capacity maximum number of entries, rounded up to a power of two
+     * @throws IllegalArgumentException if capacity &lt; 1
+     */
+    public TranspositionTable(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        int slots = Math.max(WAYS, capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1);
+        keys       = new long[slots];
+        rewards    = new double[slots];
+        visits     = new int[slots];
+        bucketMask = slots / WAYS - 1;
+        for (int i = 0; i < STRIPES; i++) locks[i] = new Object();
+    }
+
+    /** @return number of entries the table can hold */
+    public int capacity() {
+        return keys.length;
+    }
+
+    private int bucket(long key) {
+        return (int) (key ^ (key >>> 32)) & bucketMask;
+    }
+
+    /**
+     * Read an entry.
+     * @param key position hash
+     * @param reward receives the entry's reward sum at {@code index}
+     * @param index where to store it
+     * @return the entry's visits, or 0 (and reward untouched) if absent
+     */
+    public int lookup(long key, double[] reward, int index) {
+        int b = bucket(key);
+        synchronized (locks[b & (STRIPES - 1)]) {
+            for (int i = b * WAYS, end = i + WAYS; i < end; i++) {
+                if (visits[i] > 0 && keys[i] == key) {
+                    reward[index] = rewards[i];
+                    return visits[i];
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Add search results to an entry, creating it if needed. A new entry
+     * takes an empty slot of its bucket, or replaces the least-visited.
+     * @param key position hash
+     * @param reward total reward of the new visits
+     * @param n number of new visits; ignored if not positive
+     */
+    public void add(long key, double reward, int n) {
+        if (n <= 0) return;
+        int b = bucket(key);
+        synchronized (locks[b & (STRIPES - 1)]) {
+            int victim = -1;
+            for (int i = b * WAYS, end = i + WAYS; i < end; i++) {
+                if (visits[i] > 0 && keys[i] == key) {
+                    rewards[i] += reward;
+                    visits[i]  += n;
+                    return;
+                }
+                if (victim < 0 || visits[i] < visits[victim]) victim = i;
+            }
+            keys[victim]    = key;
+            rewards[victim] = reward;
+            visits[victim]  = n;
+        }
+    }
+
+    /** Remove every entry. */
+    public void clear() {
+        for (int s = 0; s < STRIPES; s++) {
+            synchronized (locks[s]) {
+                for (int b = s; b <= bucketMask; b += STRIPES) {
+                    for (int i = b * WAYS, end = i + WAYS; i < end; i++) visits[i] = 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package citadels;
+
+/**
+ * Zobrist keys for hashing game positions (see {@link Game#hash()}).
+ * <p>
+ * Each key is a fixed pseudo-random 64-bit value for one (feature, a, b)
+ * triple, e.g. (CHARACTER, seat, character) or (HAND, seat, card id). Keys
+ * are derived by a SplitMix64 finalizer rather than stored in tables, so
+ * they cover any number of cards, seats or gold without bounds checks. A
+ * position's hash XORs the keys of its features; adding or removing a
+ * feature is one XOR. Hands and cities are multisets, so their card keys
+ * are summed instead (see {@link CardList}): a second copy of a card then
+ * changes the hash as well.
+ */
+final class Zobrist {
+    /** Feature kinds. */
+    static final int PHASE = 1, RANK = 2, CHOOSER = 3, CHARACTER = 4, GOLD = 5,
+                     HAND = 6, CITY = 7, DECISION = 8, ABILITY = 9;
+
+    private Zobrist() { }
+
+    /**
+     * @param kind feature kind
+     * @param a first coordinate, e.g. seat
+     * @param b second coordinate, e.g. card id
+     * @return the feature's key
+     */
+    static long key(int kind, int a, int b) {
+        long z = ((long) kind << 56) ^ ((long) (a & 0xFFFFFF) << 32) ^ (b & 0xFFFFFFFFL);
+        z = (z + 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
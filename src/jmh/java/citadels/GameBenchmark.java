@@ -0,0 +1,223 @@
+package citadels;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * JMH benchmarks for the engine's hot paths under headless play.
+ * <p>
+ * Run with {@code gradle jmh}, which adds the GC profiler so every result
+ * reports allocation rate next to ns/op. Games are seeded so each
+ * measurement replays the same positions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+    private static final int PLAYERS = 5;
+
+    /** Build a headless, seeded AI-only game. */
+    static Game newGame(long seed) {
+        return new Game(GameConfig.builder().playerCount(PLAYERS).seed(seed).build());
+    }
+
+    /** Step a game until it leaves the given phase (or finishes). */
+    static void runPhase(Game g, Game.Phase phase) {
+        while (!g.isFinished() && g.getPhase() == phase) g.processT();
+    }
+
+    /** Raw bytes of cards.tsv, read once so parsing skips resource I/O. */
+    @State(Scope.Benchmark)
+    public static class Cards {
+        byte[] tsv;
+
+        @Setup(Level.Trial)
+        public void load() throws IOException {
+            try (InputStream in = Game.class.getResourceAsStream("/citadels/cards.tsv")) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buf = new byte[4096];
+                for (int n; (n = in.read(buf)) > 0; ) out.write(buf, 0, n);
+                tsv = out.toByteArray();
+            }
+        }
+    }
+
+    /** One full-deck state per thread for the shuffle benchmark. */
+    @State(Scope.Thread)
+    public static class DeckState {
+        DistrictDeck deck;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            deck = new DistrictDeck(CardCatalog.standard(), new SplitMix64(1L));
+        }
+    }
+
+    /** A fresh game positioned at the start of a selection phase. */
+    @State(Scope.Thread)
+    public static class AtSelection {
+        long seed;
+        Game game;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            game = newGame(seed++);
+        }
+    }
+
+    /** A fresh game positioned at the start of its first turn phase. */
+    @State(Scope.Thread)
+    public static class AtTurn {
+        long seed;
+        Game game;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            game = newGame(seed++);
+            runPhase(game, Game.Phase.SELECTION);
+        }
+    }
+
+    /** A lone AI with a dealt hand, inside a game it draws from. */
+    @State(Scope.Thread)
+    public static class AiTurn {
+        long seed;
+        Game game;
+        AIPlayer ai;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            game = newGame(seed++);
+            ai = new AIPlayer(PLAYERS + 1);
+            ai.draw(game.getDeck(), 4);
+            ai.addGold(4);
+        }
+    }
+
+    /** An AI holding a very large hand, as long Architect-style games build up. */
+    @State(Scope.Thread)
+    public static class LargeHand {
+        Game game;
+        AIPlayer ai;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            game = newGame(1L);
+            ai = new AIPlayer(PLAYERS + 1);
+            CardCatalog catalog = CardCatalog.standard();
+            SplittableRandom rng = new SplittableRandom(1L);
+            for (int i = 0; i < 1024; i++) ai.hand.add(catalog.get(rng.nextInt(catalog.size())));
+            ai.addGold(4);
+        }
+    }
+
+    /** A finished game, ready to be scored repeatedly. */
+    @State(Scope.Thread)
+    public static class Finished {
+        Game game;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            game = newGame(1L);
+            while (!game.isFinished()) game.processT();
+        }
+    }
+
+    /** A mid-game position (second turn phase) to fork repeatedly. */
+    @State(Scope.Thread)
+    public static class MidGame {
+        Game game;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            game = newGame(1L);
+            for (int round = 0; round < 2; round++) {
+                runPhase(game, Game.Phase.SELECTION);
+                runPhase(game, Game.Phase.TURN);
+            }
+            runPhase(game, Game.Phase.SELECTION);
+        }
+    }
+
+    /** Per-thread seed for full-game runs. */
+    @State(Scope.Thread)
+    public static class Seeds {
+        long next;
+    }
+
+    /** Whole selection phase: discards plus every AI character pick. */
+    @Benchmark
+    public Game selectionPhase(AtSelection s) {
+        runPhase(s.game, Game.Phase.SELECTION);
+        return s.game;
+    }
+
+    /** Whole turn phase: all 8 rank steps plus the hand-off to selection. */
+    @Benchmark
+    public Game turnPhase(AtTurn s) {
+        runPhase(s.game, Game.Phase.TURN);
+        s.game.processT();
+        return s.game;
+    }
+
+    /** Parse cards.tsv into a catalog (done once per process in play). */
+    @Benchmark
+    public CardCatalog catalogParse(Cards c) {
+        return new CardCatalog(new ByteArrayInputStream(c.tsv));
+    }
+
+    /** Build and shuffle a new deck from the shared catalog, as each game does. */
+    @Benchmark
+    public DistrictDeck deckConstruction() {
+        return new DistrictDeck(CardCatalog.standard(), new SplitMix64(1L));
+    }
+
+    /** Reshuffle a full deck in place. */
+    @Benchmark
+    public void deckShuffle(DeckState d) {
+        d.deck.shuffle();
+    }
+
+    /** One AI turn: income choice plus best affordable build. */
+    @Benchmark
+    public AIPlayer aiTakeTurn(AiTurn s) {
+        s.ai.takeTurn(s.game);
+        return s.ai;
+    }
+
+    /** Best affordable build out of a 1024-card hand. */
+    @Benchmark
+    public DistrictCard largeHandBuildChoice(LargeHand s) {
+        return s.ai.chooseBuild(s.game);
+    }
+
+    /** End-game scoring of every player plus ranking. */
+    @Benchmark
+    public GameResult scoring(Finished f) {
+        return f.game.score();
+    }
+
+    /** Forks per second of a mid-game position, as a search would take them. */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Game fork(MidGame m) {
+        return m.game.fork();
+    }
+
+    /** Full game throughput, construction through scoring. */
+    @Benchmark
+    public Game fullGame(Seeds s) {
+        Game g = newGame(s.next++);
+        while (!g.isFinished()) g.processT();
+        return g;
+    }
+}